@@ -16,16 +16,20 @@ import java.io.File;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.ppp4e.core.ConnectionMode;
 import org.eclipse.ppp4e.core.StreamConnectionProvider;
 import org.eclipse.ppp4e.ui.wizard.NewProjectWizard;
+import io.openshift.wizard.server.Server;
 
 public class NewOpenShiftProjectWizard extends NewProjectWizard {
-	private OpenShiftStreamConnectionProvider connectionProvider;
+	private StreamConnectionProvider connectionProvider;
 
 	@Override
 	protected StreamConnectionProvider getStreamConnectionProvider() {
 		if (connectionProvider == null) {
-			connectionProvider = new OpenShiftStreamConnectionProvider();
+			ConnectionMode mode = ConnectionMode.fromName(OpenShiftProvisioningPlugin.getDefault().getPreferenceStore()
+					.getString(OpenShiftPreferenceInitializer.connectionModePreference));
+			connectionProvider = mode.createProvider(OpenShiftStreamConnectionProvider::new, Server::new);
 		}
 		return connectionProvider;
 	}
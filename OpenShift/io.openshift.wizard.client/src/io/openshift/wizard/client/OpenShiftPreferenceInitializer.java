@@ -14,15 +14,18 @@ package io.openshift.wizard.client;
 
 import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.ppp4e.core.ConnectionMode;
 
 public class OpenShiftPreferenceInitializer extends AbstractPreferenceInitializer {
 	private static final IPreferenceStore STORE = OpenShiftProvisioningPlugin.getDefault().getPreferenceStore();
 
 	public static String osppsPathPreference = "osppc.ospps_path"; //$NON-NLS-1$
+	public static String connectionModePreference = "osppc.connection_mode"; //$NON-NLS-1$
 
 	@Override
 	public void initializeDefaultPreferences() {
 		STORE.setDefault(osppsPathPreference, getOSPPSPathBestGuess());
+		STORE.setDefault(connectionModePreference, ConnectionMode.PROCESS.name());
 	}
 
 	public static String getOSPPSPathBestGuess() {
@@ -13,9 +13,11 @@
 package io.openshift.wizard.client;
 
 import org.eclipse.jface.preference.PreferencePage;
+import org.eclipse.ppp4e.core.ConnectionMode;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Label;
@@ -25,6 +27,7 @@ import org.eclipse.ui.IWorkbenchPreferencePage;
 
 public class OpenShiftProvisioningPreferencePage extends PreferencePage implements IWorkbenchPreferencePage {
 	private Text serverText;
+	private Combo modeCombo;
 
 	@Override
 	protected Control createContents(Composite parent) {
@@ -43,6 +46,20 @@ public class OpenShiftProvisioningPreferencePage extends PreferencePage implemen
 		serverText.setText(
 				OpenShiftProvisioningPlugin.getDefault().getPreferenceStore()
 						.getString(OpenShiftPreferenceInitializer.osppsPathPreference));
+
+		Label modeLabel = new Label(container, SWT.NONE);
+		modeLabel.setText("Run provisioning server:");
+		modeLabel.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false));
+
+		modeCombo = new Combo(container, SWT.READ_ONLY);
+		modeCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		for (ConnectionMode mode : ConnectionMode.values()) {
+			modeCombo.add(mode.getLabel());
+		}
+		modeCombo.select(ConnectionMode.fromName(
+				OpenShiftProvisioningPlugin.getDefault().getPreferenceStore()
+						.getString(OpenShiftPreferenceInitializer.connectionModePreference))
+				.ordinal());
 		return container;
 	}
 
@@ -50,12 +67,15 @@ public class OpenShiftProvisioningPreferencePage extends PreferencePage implemen
 	public boolean performOk() {
 		OpenShiftProvisioningPlugin.getDefault().getPreferenceStore().setValue(OpenShiftPreferenceInitializer.osppsPathPreference,
 				serverText.getText());
+		OpenShiftProvisioningPlugin.getDefault().getPreferenceStore().setValue(OpenShiftPreferenceInitializer.connectionModePreference,
+				ConnectionMode.values()[modeCombo.getSelectionIndex()].name());
 		return super.performOk();
 	}
 
 	@Override
 	protected void performDefaults() {
 		serverText.setText(OpenShiftPreferenceInitializer.getOSPPSPathBestGuess());
+		modeCombo.select(ConnectionMode.PROCESS.ordinal());
 		super.performDefaults();
 	}
 
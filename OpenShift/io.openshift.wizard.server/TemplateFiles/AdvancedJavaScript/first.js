@@ -1 +0,0 @@
-/* TODO: create this demo */
\ No newline at end of file
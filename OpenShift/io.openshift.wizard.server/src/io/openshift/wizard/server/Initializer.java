@@ -12,6 +12,7 @@
  *******************************************************************************/
 package io.openshift.wizard.server;
 
+import org.eclipse.ppp4j.messages.Catalog;
 import org.eclipse.ppp4j.messages.ComponentVersion;
 import org.eclipse.ppp4j.messages.ComponentVersionSelection;
 import org.eclipse.ppp4j.messages.InitializeResult;
@@ -85,6 +86,8 @@ public class Initializer {
 					new Version("starter-us-west-1", "Starter: US West", "California"),
 					new Version("starter-us-west-2", "Starter: US West", "Oregon") });
 
+	public static final Catalog catalog = new Catalog(templates, new ComponentVersion[] { mission, cluster });
+
 	public InitializeResult initialize() {
 
 		TemplateSelection selection = new TemplateSelection("nodejs", new ComponentVersionSelection[] {
@@ -13,6 +13,7 @@
 package io.openshift.wizard.server;
 
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.ppp4j.messages.Catalog;
 import org.eclipse.ppp4j.messages.ErroneousParameter;
 import org.eclipse.ppp4j.messages.PreviewResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
@@ -38,25 +39,20 @@ public class Previewer {
 		String mission_caption;
 		String cluster_preview;
 
-		Template selectedTemplate = null;
-
-		for (Template template : Initializer.templates) {
-			if (template.id.equals(parameters.templateSelection.id)) {
-				selectedTemplate = template;
-				break;
-			}
+		Catalog catalog = Initializer.catalog;
+		Template selectedTemplate = catalog.getTemplate(parameters.templateSelection.id);
+		Version selectedRuntimeVersion = catalog.getSelectedTemplateVersion(parameters, "version");
+		Version selectedMission = catalog.getSelectedVersion(parameters, "mission");
+		Version selectedCluster = catalog.getSelectedVersion(parameters, "cluster");
+		if (selectedTemplate == null || selectedRuntimeVersion == null || selectedMission == null
+				|| selectedCluster == null) {
+			return new PreviewResult("Unknown template or component version", new ErroneousParameter[0], null);
 		}
 		runtime_title = selectedTemplate.title;
-		runtime_version = selectedTemplate.getComponentVersionById("version")
-				.getVersionById(parameters.templateSelection.getComponentVersion("version")).title;
-
-		Version selectedMission = Initializer.mission
-				.getVersionById(parameters.getComponentVersionSelectionById("mission").versionId);
+		runtime_version = selectedRuntimeVersion.title;
 		mission_title = selectedMission.title;
 		mission_caption = selectedMission.caption;
 
-		Version selectedCluster = Initializer.cluster
-				.getVersionById(parameters.getComponentVersionSelectionById("cluster").versionId);
 		if (selectedCluster.id.equals("local")) {
 			cluster_preview = "be created in the " + parameters.location + "directory.";
 		} else {
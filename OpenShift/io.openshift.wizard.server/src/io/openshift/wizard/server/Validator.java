@@ -12,7 +12,6 @@
  *******************************************************************************/
 package io.openshift.wizard.server;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -21,6 +20,7 @@ import org.eclipse.ppp4j.messages.ErroneousParameter;
 import org.eclipse.ppp4j.messages.ParameterType;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
 import org.eclipse.ppp4j.messages.ValidationResult;
+import org.eclipse.ppp4j.server.LocationProbe;
 
 public class Validator {
 	public ValidationResult validation(ProvisioningParameters parameters) {
@@ -47,13 +47,12 @@ public class Validator {
 		if (parameters.location == null || parameters.location.isEmpty()) {
 			locationError = "Location field cannot be empty";
 		} else {
-			File directory = new File(parameters.location);
+			LocationProbe.Result directory = LocationProbe.getDefault().probe(parameters.location);
 			if (directory.isFile()) {
 				locationError = "Given location is an existing file";
-			} else if (directory.getParentFile() == null
-					|| (!directory.exists() && !directory.getParentFile().canWrite())) {
+			} else if (!directory.hasParent() || (!directory.exists() && !directory.isParentWritable())) {
 				locationError = "Unable to create project in given location";
-			} else if (directory.exists() && !directory.canWrite()) {
+			} else if (directory.exists() && !directory.isWritable()) {
 				locationError = "Cannot write in given location";
 			}
 		}
@@ -86,14 +85,9 @@ public class Validator {
 			.add(new ErroneousParameter(ParameterType.Version, "Version field cannot be empty", null));
 		}
 
-		String templateId = parameters.templateSelection.id;
-		String missionId = null;
-		for (ComponentVersionSelection selection : parameters.componentVersionSelections) {
-			if (selection.id.equals("mission")) {
-				missionId = selection.versionId;
-				break;
-			}
-		}
+		String templateId = parameters.templateSelection == null ? null : parameters.templateSelection.id;
+		ComponentVersionSelection missionSelection = parameters.getComponentVersionSelectionById("mission");
+		String missionId = missionSelection == null ? null : missionSelection.versionId;
 		if (missionId == null) {
 			if (errorMessage == null) {
 				errorMessage = "Mission must be selected";
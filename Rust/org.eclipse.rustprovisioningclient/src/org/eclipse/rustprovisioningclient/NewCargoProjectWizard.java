@@ -16,16 +16,20 @@ import java.io.File;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.ppp4e.core.ConnectionMode;
 import org.eclipse.ppp4e.core.StreamConnectionProvider;
 import org.eclipse.ppp4e.ui.wizard.NewProjectWizard;
+import org.eclipse.rustprovisioningserver.Server;
 
 public class NewCargoProjectWizard extends NewProjectWizard {
-	private RustStreamConnectionProvider connectionProvider;
+	private StreamConnectionProvider connectionProvider;
 
 	@Override
 	protected StreamConnectionProvider getStreamConnectionProvider() {
 		if (connectionProvider == null) {
-			connectionProvider = new RustStreamConnectionProvider();
+			ConnectionMode mode = ConnectionMode.fromName(RustProvisioningPlugin.getDefault().getPreferenceStore()
+					.getString(RustPreferenceInitializer.connectionModePreference));
+			connectionProvider = mode.createProvider(RustStreamConnectionProvider::new, Server::new);
 		}
 		return connectionProvider;
 	}
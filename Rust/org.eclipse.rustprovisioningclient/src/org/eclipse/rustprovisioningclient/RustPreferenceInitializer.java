@@ -14,15 +14,18 @@ package org.eclipse.rustprovisioningclient;
 
 import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.ppp4e.core.ConnectionMode;
 
 public class RustPreferenceInitializer extends AbstractPreferenceInitializer {
 	private static final IPreferenceStore STORE = RustProvisioningPlugin.getDefault().getPreferenceStore();
 
 	public static String rppsPathPreference = "rppc.rpps_path"; //$NON-NLS-1$
+	public static String connectionModePreference = "rppc.connection_mode"; //$NON-NLS-1$
 
 	@Override
 	public void initializeDefaultPreferences() {
 		STORE.setDefault(rppsPathPreference, getRPPSPathBestGuess());
+		STORE.setDefault(connectionModePreference, ConnectionMode.PROCESS.name());
 	}
 
 	public static String getRPPSPathBestGuess() {
@@ -0,0 +1,294 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.rustprovisioningserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.ppp4j.server.ProvisioningTransaction;
+
+/**
+ * Project skeletons captured once from a real <code>cargo init</code> and
+ * rendered for new projects without running cargo again.
+ *
+ * The skeleton is made with the same <code>cargo init --name N --bin</code> as
+ * provisioning with cargo, with a placeholder crate name which is replaced by
+ * the project name when rendering. Its directories and executable files are
+ * kept, so rendered projects get the same repository as cargo would create.
+ * It is captured again when the cargo binary changes.
+ */
+final class CargoSkeletons {
+	private static final String NAME_PLACEHOLDER = "rpps_skeleton_placeholder";
+	private static final String VERSION_PLACEHOLDER = "${crate_version}";
+	private static final Pattern PLAIN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_-]*");
+
+	private static final CargoSkeletons DEFAULT = new CargoSkeletons();
+
+	private volatile Skeleton skeleton;
+
+	static CargoSkeletons getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return whether a project with that name can be rendered, names cargo would
+	 *         need to check or rewrite are left to cargo
+	 */
+	static boolean canRender(String name, File location) {
+		if (name == null || !PLAIN_NAME.matcher(name).matches()) {
+			return false;
+		}
+		String[] existing = location.list();
+		return (existing == null || existing.length == 0) && !isInRepository(location);
+	}
+
+	/**
+	 * cargo init does not create a repository inside an existing one, while the
+	 * skeleton captured in a temporary directory has one.
+	 */
+	private static boolean isInRepository(File location) {
+		for (File directory = location.getAbsoluteFile(); directory != null; directory = directory
+				.getParentFile()) {
+			if (new File(directory, ".git").exists() || new File(directory, ".hg").exists()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stages the skeleton of the template in the transaction of the project.
+	 *
+	 * @return the paths of the staged files, relative to the project
+	 */
+	List<String> render(String templateId, String name, String crateVersion, ProvisioningTransaction transaction)
+			throws IOException, InterruptedException {
+		Tree tree = getSkeleton().tree(templateId);
+		for (String directory : tree.directories) {
+			Files.createDirectories(transaction.getStagingDirectory().resolve(directory));
+		}
+		for (Map.Entry<String, String> file : tree.files.entrySet()) {
+			String content = file.getValue().replace(NAME_PLACEHOLDER, name);
+			if (crateVersion != null) {
+				content = content.replace(VERSION_PLACEHOLDER, crateVersion);
+			}
+			byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+			boolean executable = tree.executables.contains(file.getKey());
+			transaction.write(file.getKey(), target -> {
+				Files.write(target, bytes, StandardOpenOption.CREATE_NEW);
+				if (executable) {
+					target.toFile().setExecutable(true, false);
+				}
+			});
+		}
+		return new ArrayList<>(tree.files.keySet());
+	}
+
+	/**
+	 * Runs <code>cargo init</code> for the name in a temporary directory, applies
+	 * the template like provisioning with cargo does and compares the result
+	 * with the rendered skeleton of the template. The skeleton is dropped when
+	 * they differ so that it is captured again.
+	 *
+	 * @return the differences, empty if there are none
+	 */
+	List<String> verify(String templateId, String name, String crateVersion)
+			throws IOException, InterruptedException {
+		Path cargoOutput = Files.createTempDirectory("rpps-verify");
+		Path rendered = Files.createTempDirectory("rpps-verify");
+		try {
+			runCargoInit(name, cargoOutput);
+			Provisionner.applyTemplate(templateId, crateVersion, cargoOutput.toFile());
+			try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(rendered.toFile())) {
+				render(templateId, name, crateVersion, transaction);
+				transaction.commit();
+			}
+			Tree expected = readTree(cargoOutput);
+			Tree actual = readTree(rendered);
+			List<String> differences = new ArrayList<>();
+			for (Map.Entry<String, String> file : expected.files.entrySet()) {
+				String renderedContent = actual.files.get(file.getKey());
+				if (renderedContent == null) {
+					differences.add("missing " + file.getKey());
+				} else if (!renderedContent.equals(file.getValue())) {
+					differences.add("differs " + file.getKey() + ":\n--- cargo\n" + file.getValue() + "\n--- skeleton\n"
+							+ renderedContent);
+				} else if (expected.executables.contains(file.getKey()) != actual.executables
+						.contains(file.getKey())) {
+					differences.add("executable bit differs " + file.getKey());
+				}
+			}
+			for (String path : actual.files.keySet()) {
+				if (!expected.files.containsKey(path)) {
+					differences.add("unexpected " + path);
+				}
+			}
+			for (String directory : expected.directories) {
+				if (!actual.directories.contains(directory)) {
+					differences.add("missing directory " + directory);
+				}
+			}
+			for (String directory : actual.directories) {
+				if (!expected.directories.contains(directory)) {
+					differences.add("unexpected directory " + directory);
+				}
+			}
+			if (!differences.isEmpty()) {
+				skeleton = null;
+			}
+			return differences;
+		} finally {
+			deleteTree(cargoOutput);
+			deleteTree(rendered);
+		}
+	}
+
+	private Skeleton getSkeleton() throws IOException, InterruptedException {
+		String cargoPath = ToolResolver.getDefault().resolve("cargo");
+		long cargoModified = new File(cargoPath).lastModified();
+		Skeleton current = skeleton;
+		if (current != null && current.cargoPath.equals(cargoPath) && current.cargoModified == cargoModified) {
+			return current;
+		}
+		synchronized (this) {
+			current = skeleton;
+			if (current == null || !current.cargoPath.equals(cargoPath) || current.cargoModified != cargoModified) {
+				current = capture(cargoPath, cargoModified);
+				skeleton = current;
+			}
+			return current;
+		}
+	}
+
+	private Skeleton capture(String cargoPath, long cargoModified) throws IOException, InterruptedException {
+		Path directory = Files.createTempDirectory("rpps-skeleton");
+		try {
+			runCargoInit(NAME_PLACEHOLDER, directory);
+			Tree helloWorld = readTree(directory);
+			Map<String, String> crateExampleFiles = new TreeMap<>(helloWorld.files);
+			crateExampleFiles.put("Cargo.toml",
+					helloWorld.files.get("Cargo.toml") + "time = \"" + VERSION_PLACEHOLDER + "\"");
+			try (InputStream in = CargoSkeletons.class.getResourceAsStream("/crate_example/main.rs")) {
+				crateExampleFiles.put("src/main.rs", readString(Objects.requireNonNull(in, "crate_example/main.rs")));
+			}
+			Tree crateExample = new Tree(crateExampleFiles, helloWorld.directories, helloWorld.executables);
+			return new Skeleton(cargoPath, cargoModified, helloWorld, crateExample);
+		} finally {
+			deleteTree(directory);
+		}
+	}
+
+	private static void runCargoInit(String name, Path directory) throws IOException, InterruptedException {
+		List<String> command = Provisionner.commandList(name);
+		// the server's own output is the protocol channel, keep cargo's away from it
+		Process process = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true)
+				.start();
+		String output;
+		try (InputStream in = process.getInputStream()) {
+			output = readString(in);
+		}
+		if (process.waitFor() != 0) {
+			throw new IOException(output);
+		}
+	}
+
+	private static Tree readTree(Path root) throws IOException {
+		Map<String, String> files = new TreeMap<>();
+		Set<String> directories = new TreeSet<>();
+		Set<String> executables = new TreeSet<>();
+		try (Stream<Path> paths = Files.walk(root)) {
+			for (Path path : paths.filter(path -> !path.equals(root)).collect(Collectors.toList())) {
+				String relative = root.relativize(path).toString().replace(File.separatorChar, '/');
+				if (Files.isDirectory(path)) {
+					directories.add(relative);
+				} else if (Files.isRegularFile(path)) {
+					files.put(relative, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+					if (Files.isExecutable(path)) {
+						executables.add(relative);
+					}
+				}
+			}
+		}
+		return new Tree(files, directories, executables);
+	}
+
+	private static String readString(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void deleteTree(Path root) throws IOException {
+		try (Stream<Path> paths = Files.walk(root)) {
+			for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	/**
+	 * The files of a project by their path relative to it, with its directories,
+	 * including the empty ones a repository needs.
+	 */
+	private static final class Tree {
+		final Map<String, String> files;
+		final Set<String> directories;
+		final Set<String> executables;
+
+		Tree(Map<String, String> files, Set<String> directories, Set<String> executables) {
+			this.files = Collections.unmodifiableMap(files);
+			this.directories = Collections.unmodifiableSet(directories);
+			this.executables = Collections.unmodifiableSet(executables);
+		}
+	}
+
+	private static final class Skeleton {
+		final String cargoPath;
+		final long cargoModified;
+		final Tree helloWorld;
+		final Tree crateExample;
+
+		Skeleton(String cargoPath, long cargoModified, Tree helloWorld, Tree crateExample) {
+			this.cargoPath = cargoPath;
+			this.cargoModified = cargoModified;
+			this.helloWorld = helloWorld;
+			this.crateExample = crateExample;
+		}
+
+		Tree tree(String templateId) {
+			return "crate_example".equals(templateId) ? crateExample : helloWorld;
+		}
+	}
+}
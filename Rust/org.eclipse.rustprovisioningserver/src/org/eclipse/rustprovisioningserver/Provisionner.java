@@ -6,7 +6,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
@@ -15,46 +14,111 @@ import java.util.List;
 import org.eclipse.ppp4j.messages.ErroneousParameter;
 import org.eclipse.ppp4j.messages.ProvisionResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.server.LocationProbe;
+import org.eclipse.ppp4j.server.ProvisioningTransaction;
+import org.eclipse.ppp4j.server.RequestContext;
 
 public class Provisionner {
+	/**
+	 * How projects are made: <code>cargo</code> runs cargo init for each project,
+	 * <code>skeleton</code> renders a skeleton captured once from cargo init (see
+	 * {@link CargoSkeletons}), <code>verify</code> renders the skeleton and reports
+	 * on stderr how it differs from what cargo init makes.
+	 */
+	public static final String MODE_PROPERTY = "rpps.provisioning.mode";
+	private static final String MODE = System.getProperty(MODE_PROPERTY, "cargo");
+	private static final int PROVISION_STEPS = 3;
+
 	public ProvisionResult provision(ProvisioningParameters parameters) {
 		File location = new File(parameters.location);
-		Boolean makeLocation = !location.exists();
-		if (makeLocation) {
-			location.mkdirs();
+		String[] existing = location.list();
+		if (existing != null && existing.length > 0) {
+			// cargo init adapts to the files already there so it runs in place, what
+			// it wrote is left behind if it fails
+			ProvisionResult result = runCargoInit(parameters, location);
+			LocationProbe.getDefault().invalidate(parameters.location);
+			return result;
+		}
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location)) {
+			ProvisionResult result;
+			if (!"cargo".equals(MODE) && CargoSkeletons.canRender(parameters.name, location)) {
+				result = provisionFromSkeleton(parameters, transaction);
+			} else {
+				result = runCargoInit(parameters, transaction.getStagingDirectory().toFile());
+			}
+			if (result.errorMessage == null) {
+				transaction.commit();
+				LocationProbe.getDefault().invalidate(parameters.location);
+			}
+			return result;
+		} catch (IOException e) {
+			return createErrorResult(e.getLocalizedMessage());
 		}
+	}
 
+	/**
+	 * Runs cargo init in the directory and applies the template to what it made.
+	 */
+	private ProvisionResult runCargoInit(ProvisioningParameters parameters, File directory) {
 		ProcessBuilder processBuilder = new ProcessBuilder(commandListFromParameters(parameters));
-		processBuilder.directory(location);
+		processBuilder.directory(directory);
+		// cargo reports on stderr, merging it lets one reader drain both streams
+		// while cargo runs instead of after it exited
+		processBuilder.redirectErrorStream(true);
 
-		String errorMessage = "";
+		RequestContext context = RequestContext.current();
+		context.reportProgress("Running cargo init", 0, PROVISION_STEPS);
+		StringBuilder output = new StringBuilder();
 		try {
 			Process process = processBuilder.start();
-			if (process.waitFor() == 0) {
-				return applyTemplate(parameters);
-			} else {
-				try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-					String errorLine;
-					while ((errorLine = in.readLine()) != null) {
-						errorMessage += errorLine + '\n';
-					}
-				}
-				if (makeLocation) {
-					location.delete();
+			context.onCancel(process::destroy);
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				String line;
+				while ((line = in.readLine()) != null) {
+					output.append(line).append('\n');
+					context.reportProgress(line.trim(), 1, PROVISION_STEPS);
 				}
-				return createErrorResult(errorMessage);
 			}
-		} catch (InterruptedException | IOException e) {
-			if (makeLocation) {
-				location.delete();
+			if (process.waitFor() == 0 && !context.isCancelled()) {
+				context.reportProgress("Applying the " + parameters.templateSelection.id + " template", 2,
+						PROVISION_STEPS);
+				return applyTemplate(parameters, directory);
+			} else {
+				return createErrorResult(context.isCancelled() ? "Provisioning cancelled" : output.toString());
 			}
+		} catch (InterruptedException | IOException e) {
 			return createErrorResult(e.getLocalizedMessage());
 		}
+	}
 
+	private ProvisionResult provisionFromSkeleton(ProvisioningParameters parameters,
+			ProvisioningTransaction transaction) {
+		RequestContext.current().reportProgress("Writing the " + parameters.templateSelection.id + " skeleton", 0,
+				1);
+		try {
+			CargoSkeletons.getDefault().render(parameters.templateSelection.id, parameters.name,
+					parameters.templateSelection.getComponentVersion("crate_version"), transaction);
+		} catch (InterruptedException | IOException e) {
+			return createErrorResult(e.getLocalizedMessage());
+		}
+		if ("verify".equals(MODE)) {
+			try {
+				for (String difference : CargoSkeletons.getDefault().verify(parameters.templateSelection.id,
+						parameters.name, parameters.templateSelection.getComponentVersion("crate_version"))) {
+					System.err.println("Skeleton differs from cargo init, " + difference);
+				}
+			} catch (InterruptedException | IOException e) {
+				System.err.println("Skeleton could not be verified: " + e.getLocalizedMessage());
+			}
+		}
+		return createResult(parameters);
 	}
 
 	public static List<String> commandListFromParameters(ProvisioningParameters parameters) {
-		String projectName = parameters.name;
+		return commandList(parameters.name);
+	}
+
+	static List<String> commandList(String projectName) {
 		List<String> commandLine = new ArrayList<>();
 		commandLine.add(getCargoPath());
 		commandLine.add("init");
@@ -71,20 +135,37 @@ public class Provisionner {
 		return new ProvisionResult(errorMessage, new ErroneousParameter[0], null, new String[0]);
 	}
 
-	private ProvisionResult applyTemplate(ProvisioningParameters parameters) {
-		switch (parameters.templateSelection.id) {
+	private ProvisionResult applyTemplate(ProvisioningParameters parameters, File directory) {
+		try {
+			applyTemplate(parameters.templateSelection.id,
+					parameters.templateSelection.getComponentVersion("crate_version"), directory);
+		} catch (Exception e) {
+			return createErrorResult(e.getLocalizedMessage());
+		}
+		return createResult(parameters);
+	}
+
+	/**
+	 * Changes what cargo init made in the directory into the template.
+	 */
+	static void applyTemplate(String templateId, String crateVersion, File directory) throws IOException {
+		switch (templateId) {
 		case "crate_example":
-			try {
-				Files.write(Paths.get(parameters.location + "/Cargo.toml"),
-						("time = \"" + parameters.templateSelection.getComponentVersion("crate_version") + "\"")
-						.getBytes(),
-						StandardOpenOption.APPEND);
-				InputStream in = getClass().getResourceAsStream("/crate_example/main.rs");
-				Files.copy(in, new File(parameters.location + "/src/main.rs").toPath(),
-						StandardCopyOption.REPLACE_EXISTING);
-			} catch (Exception e) {
-				return createErrorResult(e.getLocalizedMessage());
+			Files.write(new File(directory, "Cargo.toml").toPath(), ("time = \"" + crateVersion + "\"").getBytes(),
+					StandardOpenOption.APPEND);
+			try (InputStream in = Provisionner.class.getResourceAsStream("/crate_example/main.rs")) {
+				Files.copy(in, new File(directory, "src/main.rs").toPath(), StandardCopyOption.REPLACE_EXISTING);
 			}
+			break;
+		case "hello_world":
+		default:
+			break;
+		}
+	}
+
+	private ProvisionResult createResult(ProvisioningParameters parameters) {
+		switch (parameters.templateSelection.id) {
+		case "crate_example":
 			return new ProvisionResult(null, new ErroneousParameter[0], parameters.location,
 					new String[] { "src/main.rs", "Cargo.toml" });
 		case "hello_world":
@@ -95,29 +176,6 @@ public class Provisionner {
 	}
 
 	private static String getCargoPath() {
-		String command = findCommandPath("cargo");
-		if (command.isEmpty()) {
-			File possibleCommandFile = new File(System.getProperty("user.home") + "/.cargo/bin/cargo");
-			if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
-				return possibleCommandFile.getAbsolutePath();
-			}
-		}
-		return command;
-	}
-
-	private static String findCommandPath(String command) {
-		try {
-			ProcessBuilder builder = new ProcessBuilder("which", command);
-			Process process = builder.start();
-
-			if (process.waitFor() == 0) {
-				try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-					return in.readLine();
-				}
-			}
-		} catch (IOException | InterruptedException e) {
-			// Errors caught with empty return
-		}
-		return "";
+		return ToolResolver.getDefault().resolve("cargo");
 	}
 }
@@ -24,8 +24,14 @@ import org.eclipse.ppp4j.messages.ValidationResult;
 import org.eclipse.ppp4j.server.ProvisioningServer;
 
 public class Server extends ProvisioningServer {
-	boolean supportMarkdown;
-	boolean allowFileCreation;
+	volatile boolean supportMarkdown;
+	volatile boolean allowFileCreation;
+
+	@Override
+	protected int getMaxConcurrentRequests() {
+		// provisioning waits on cargo, keep validation and preview responsive meanwhile
+		return 4;
+	}
 
 	@Override
 	public InitializeResult initialize(Initialize initialize) {
@@ -0,0 +1,124 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.rustprovisioningserver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds executables the way a shell would, by walking the directories of
+ * <code>PATH</code> and then <code>~/.cargo/bin</code>, without starting a
+ * process.
+ *
+ * Resolutions are cached. A found tool is looked up again once its file is
+ * removed or its modification time changes, a missing tool once one of the
+ * searched directories changes.
+ */
+public final class ToolResolver {
+	private static final boolean WINDOWS = System.getProperty("os.name", "").toLowerCase(Locale.ROOT)
+			.startsWith("windows");
+	private static final ToolResolver DEFAULT = new ToolResolver(System.getenv("PATH"),
+			new File(System.getProperty("user.home"), ".cargo" + File.separator + "bin"));
+
+	private final List<File> directories;
+	private final Map<String, Resolution> resolutions = new ConcurrentHashMap<>();
+
+	ToolResolver(String path, File... extraDirectories) {
+		List<File> dirs = new ArrayList<>();
+		if (path != null) {
+			for (String entry : path.split(File.pathSeparator)) {
+				if (!entry.isEmpty()) {
+					dirs.add(new File(entry));
+				}
+			}
+		}
+		for (File extra : extraDirectories) {
+			dirs.add(extra);
+		}
+		this.directories = dirs;
+	}
+
+	public static ToolResolver getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @return the absolute path of the executable, or an empty string if it could
+	 *         not be found
+	 */
+	public String resolve(String tool) {
+		Resolution resolution = resolutions.get(tool);
+		if (resolution == null || !resolution.isCurrent()) {
+			resolution = search(tool);
+			resolutions.put(tool, resolution);
+		}
+		return resolution.file == null ? "" : resolution.file.getAbsolutePath();
+	}
+
+	/**
+	 * Forgets every cached resolution.
+	 */
+	public void clear() {
+		resolutions.clear();
+	}
+
+	private Resolution search(String tool) {
+		long[] directoryStamps = new long[directories.size()];
+		for (int i = 0; i < directories.size(); i++) {
+			File directory = directories.get(i);
+			directoryStamps[i] = directory.lastModified();
+			for (String name : candidateNames(tool)) {
+				File file = new File(directory, name);
+				if (file.isFile() && file.canExecute()) {
+					return new Resolution(file, file.lastModified(), null);
+				}
+			}
+		}
+		return new Resolution(null, 0, directoryStamps);
+	}
+
+	private static String[] candidateNames(String tool) {
+		if (WINDOWS) {
+			return new String[] { tool + ".exe", tool + ".cmd", tool + ".bat", tool };
+		}
+		return new String[] { tool };
+	}
+
+	private final class Resolution {
+		final File file;
+		final long lastModified;
+		final long[] directoryStamps;
+
+		Resolution(File file, long lastModified, long[] directoryStamps) {
+			this.file = file;
+			this.lastModified = lastModified;
+			this.directoryStamps = directoryStamps;
+		}
+
+		boolean isCurrent() {
+			if (file != null) {
+				return file.lastModified() == lastModified && lastModified != 0;
+			}
+			for (int i = 0; i < directoryStamps.length; i++) {
+				if (directories.get(i).lastModified() != directoryStamps[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -12,13 +12,13 @@
  *******************************************************************************/
 package org.eclipse.rustprovisioningserver;
 
-import java.io.File;
 import java.util.ArrayList;
 
 import org.eclipse.ppp4j.messages.ErroneousParameter;
 import org.eclipse.ppp4j.messages.ParameterType;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
 import org.eclipse.ppp4j.messages.ValidationResult;
+import org.eclipse.ppp4j.server.LocationProbe;
 
 public class Validator {
 	public ValidationResult validation(ProvisioningParameters parameters) {
@@ -34,13 +34,12 @@ public class Validator {
 		if (parameters.location == null || parameters.location.isEmpty()) {
 			locationError = "Location field cannot be empty";
 		} else {
-			File directory = new File(parameters.location);
+			LocationProbe.Result directory = LocationProbe.getDefault().probe(parameters.location);
 			if (directory.isFile()) {
 				locationError = "Given location is an existing file";
-			} else if (directory.getParentFile() == null
-					|| (!directory.exists() && !directory.getParentFile().canWrite())) {
+			} else if (!directory.hasParent() || (!directory.exists() && !directory.isParentWritable())) {
 				locationError = "Unable to create project in given location";
-			} else if (directory.exists() && !directory.canWrite()) {
+			} else if (directory.exists() && !directory.isWritable()) {
 				locationError = "Cannot write in given location";
 			}
 		}
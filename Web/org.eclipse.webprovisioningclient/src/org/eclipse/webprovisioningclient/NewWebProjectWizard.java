@@ -16,16 +16,20 @@ import java.io.File;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.ppp4e.core.ConnectionMode;
 import org.eclipse.ppp4e.core.StreamConnectionProvider;
 import org.eclipse.ppp4e.ui.wizard.NewProjectWizard;
+import org.eclipse.webprovisioningserver.Server;
 
 public class NewWebProjectWizard extends NewProjectWizard {
-	private WebStreamConnectionProvider connectionProvider;
+	private StreamConnectionProvider connectionProvider;
 
 	@Override
 	protected StreamConnectionProvider getStreamConnectionProvider() {
 		if (connectionProvider == null) {
-			connectionProvider = new WebStreamConnectionProvider();
+			ConnectionMode mode = ConnectionMode.fromName(WebProvisioningPlugin.getDefault().getPreferenceStore()
+					.getString(WebPreferenceInitializer.connectionModePreference));
+			connectionProvider = mode.createProvider(WebStreamConnectionProvider::new, Server::new);
 		}
 		return connectionProvider;
 	}
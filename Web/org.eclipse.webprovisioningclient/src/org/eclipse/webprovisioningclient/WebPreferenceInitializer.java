@@ -14,15 +14,18 @@ package org.eclipse.webprovisioningclient;
 
 import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.ppp4e.core.ConnectionMode;
 
 public class WebPreferenceInitializer extends AbstractPreferenceInitializer {
 	private static final IPreferenceStore STORE = WebProvisioningPlugin.getDefault().getPreferenceStore();
 
 	public static String wppsPathPreference = "wppc.wpps_path"; //$NON-NLS-1$
+	public static String connectionModePreference = "wppc.connection_mode"; //$NON-NLS-1$
 
 	@Override
 	public void initializeDefaultPreferences() {
 		STORE.setDefault(wppsPathPreference, getWPPSPathBestGuess());
+		STORE.setDefault(connectionModePreference, ConnectionMode.PROCESS.name());
 	}
 
 	public static String getWPPSPathBestGuess() {
@@ -36,6 +36,7 @@ public class Initializer {
 		InitializeResult result = new InitializeResult(true, true, true, templates, new ComponentVersion[0],
 				new ProvisioningParameters("New_Website", "/tmp/New_Website", "0.0.1-beta", selection,
 						new ComponentVersionSelection[0]));
+		result.provisionInstructionsSupported = true;
 		return result;
 	}
 }
\ No newline at end of file
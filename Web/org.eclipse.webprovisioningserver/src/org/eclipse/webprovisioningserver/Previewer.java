@@ -12,11 +12,14 @@
  *******************************************************************************/
 package org.eclipse.webprovisioningserver;
 
+import java.io.IOException;
+
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.ppp4j.messages.ErroneousParameter;
 import org.eclipse.ppp4j.messages.PreviewResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
 import org.eclipse.ppp4j.messages.ValidationResult;
+import org.eclipse.webprovisioningserver.TemplateStore.TemplateFile;
 
 public class Previewer {
 	private static final String PREIVEW_STRING = "**Resulting structure:**\n\n{0}";
@@ -25,21 +28,18 @@ public class Previewer {
 		if (validation.errorMessage != null || validation.erroneousParameters.length > 0) {
 			return new PreviewResult(validation.errorMessage, validation.erroneousParameters, null);
 		}
-		String resultDescription = "index.html";
-		switch (parameters.templateSelection.id) {
-		case "form":
-			resultDescription += "\n\nresult.html";
-			break;
-		case "advanced_css":
-			resultDescription += "\n\nfirst.css\n\nsecond.css";
-			break;
-		case "advanced_js":
-			resultDescription += "\n\nfirst.js\n\nsecond.js";
-			break;
-		default:
-			break;
+		StringBuilder resultDescription = new StringBuilder();
+		try {
+			for (TemplateFile file : TemplateStore.getDefault().files(parameters.templateSelection.id)) {
+				if (resultDescription.length() > 0) {
+					resultDescription.append("\n\n");
+				}
+				resultDescription.append(file.path);
+			}
+		} catch (IOException e) {
+			return new PreviewResult(e.getMessage(), new ErroneousParameter[0], null);
 		}
-		String result = NLS.bind(PREIVEW_STRING, new Object[] { resultDescription });
+		String result = NLS.bind(PREIVEW_STRING, new Object[] { resultDescription.toString() });
 		return new PreviewResult(null, new ErroneousParameter[0], result);
 	}
 }
@@ -1,20 +1,20 @@
 package org.eclipse.webprovisioningserver;
 
 import java.io.File;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.util.List;
 
 import org.eclipse.ppp4j.messages.ErroneousParameter;
+import org.eclipse.ppp4j.messages.Instruction;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
 import org.eclipse.ppp4j.messages.ProvisionResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.server.LocationProbe;
+import org.eclipse.ppp4j.server.ProvisioningTransaction;
+import org.eclipse.webprovisioningserver.TemplateStore.TemplateFile;
 
 public class Provisionner {
 	public ProvisionResult provision(ProvisioningParameters parameters) {
-		File location = new File(parameters.location);
-		Boolean makeLocation = !location.exists();
-		if (makeLocation) {
-			location.mkdirs();
-		}
 		return applyTemplate(parameters);
 	}
 
@@ -22,33 +22,43 @@ public class Provisionner {
 		return new ProvisionResult(errorMessage, new ErroneousParameter[0], null, new String[0]);
 	}
 
-	private ProvisionResult applyTemplate(ProvisioningParameters parameters) {
-		String[] paths = new String[0];
-		switch (parameters.templateSelection.id) {
-		case "hello_world":
-			paths = new String[] { "/HelloWorld/index.html" };
-			break;
-		case "form":
-			paths = new String[] { "/Form/index.html", "/Form/result.html" };
-			break;
-		case "advanced_js":
-			paths = new String[] { "/AdvancedJavaScript/index.html", "/AdvancedJavaScript/first.js",
-			"/AdvancedJavaScript/second.js" };
-			break;
-		case "advanced_css":
-			paths = new String[] { "/AdvancedCSS/index.html", "/AdvancedCSS/first.css", "/AdvancedCSS/second.css" };
-			break;
+	/**
+	 * Gives the files of the template for the client to write, nothing is
+	 * written by the server.
+	 */
+	public ProvisionInstructionsResult provisionInstructions(ProvisioningParameters parameters) {
+		String templateId = parameters.templateSelection.id;
+		TemplateStore store;
+		try {
+			store = TemplateStore.getDefault();
+		} catch (IOException e) {
+			return new ProvisionInstructionsResult(e.getMessage(), new ErroneousParameter[0], null,
+					new Instruction[0], new String[0]);
+		}
+		List<TemplateFile> files = store.files(templateId);
+		Instruction[] instructions = new Instruction[files.size()];
+		for (int i = 0; i < instructions.length; i++) {
+			// chunked so that any content is sent safely
+			instructions[i] = Instruction.chunked(files.get(i).path, store.source(files.get(i)));
 		}
-		for (String path : paths) {
-			try {
-				InputStream in = getClass().getResourceAsStream(path);
-				int index = path.lastIndexOf('/');
-				Files.copy(in, new File(parameters.location + (index == -1 ? path : path.substring(index))).toPath());
-			} catch (Exception e) {
-				return createErrorResult(e.getMessage());
+		return new ProvisionInstructionsResult(null, new ErroneousParameter[0], parameters.name, instructions,
+				store.openFiles(templateId));
+	}
+
+	private ProvisionResult applyTemplate(ProvisioningParameters parameters) {
+		String templateId = parameters.templateSelection.id;
+		TemplateStore store;
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(new File(parameters.location))) {
+			store = TemplateStore.getDefault();
+			for (TemplateFile file : store.files(templateId)) {
+				transaction.write(file.path, target -> store.write(file, target));
 			}
+			transaction.commit();
+		} catch (Exception e) {
+			return createErrorResult(e.getMessage());
 		}
+		LocationProbe.getDefault().invalidate(parameters.location);
 		return new ProvisionResult(null, new ErroneousParameter[0], parameters.location,
-				new String[] { "index.html" });
+				store.openFiles(templateId));
 	}
 }
@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.webprovisioningserver;
 
+import java.io.IOException;
+
 import org.eclipse.ppp4j.messages.Initialize;
 import org.eclipse.ppp4j.messages.InitializeResult;
 import org.eclipse.ppp4j.messages.PreviewResult;
@@ -31,6 +33,12 @@ public class Server extends ProvisioningServer {
 	public InitializeResult initialize(Initialize initialize) {
 		this.supportMarkdown = initialize.supportMarkdown;
 		this.allowFileCreation = initialize.allowFileCreation;
+		try {
+			// loaded now rather than on the first provision
+			TemplateStore.getDefault();
+		} catch (IOException e) {
+			// reported by the requests that need the templates
+		}
 		return new Initializer().initialize();
 	}
 
@@ -51,7 +59,7 @@ public class Server extends ProvisioningServer {
 
 	@Override
 	public ProvisionInstructionsResult provisionInstructions(ProvisioningParameters parameters) {
-		return null;
+		return new Provisionner().provisionInstructions(parameters);
 	}
 
 	@Override
@@ -0,0 +1,185 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.webprovisioningserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.ppp4j.messages.Instruction.ContentSource;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * The files of the templates, read once from the bundle and kept in memory by
+ * the hash of their content, so that files shared by several templates are only
+ * held once. Which files make a template is described by the
+ * <code>templates.json</code> manifest next to them.
+ *
+ * Each project gets its own copy of the bytes. Files are not linked to a shared
+ * copy on disk, since editing a linked file in place would change it in every
+ * project provisioned from the same template.
+ */
+final class TemplateStore {
+	private static final String MANIFEST = "/templates.json";
+
+	private static TemplateStore defaultStore;
+
+	private final Map<String, byte[]> blobs;
+	private final Map<String, Template> templates;
+
+	/**
+	 * A file of a template.
+	 */
+	static final class TemplateFile {
+		final String path;
+		final String hash;
+
+		TemplateFile(String path, String hash) {
+			this.path = path;
+			this.hash = hash;
+		}
+	}
+
+	private static final class Template {
+		final List<TemplateFile> files;
+		final String[] openFiles;
+
+		Template(List<TemplateFile> files, String[] openFiles) {
+			this.files = files;
+			this.openFiles = openFiles;
+		}
+	}
+
+	// as read from the manifest
+	private static final class TemplateEntry {
+		LinkedHashMap<String, String> files;
+		String[] openFiles;
+	}
+
+	/**
+	 * Loads the store on first use. A store that failed to load is loaded again
+	 * on the next call.
+	 */
+	static synchronized TemplateStore getDefault() throws IOException {
+		if (defaultStore == null) {
+			defaultStore = new TemplateStore();
+		}
+		return defaultStore;
+	}
+
+	private TemplateStore() throws IOException {
+		Map<String, TemplateEntry> manifest = readManifest();
+		Map<String, byte[]> blobs = new HashMap<>();
+		Map<String, Template> templates = new HashMap<>();
+		for (Map.Entry<String, TemplateEntry> template : manifest.entrySet()) {
+			TemplateEntry entry = template.getValue();
+			List<TemplateFile> files = new ArrayList<>();
+			if (entry.files != null) {
+				for (Map.Entry<String, String> file : entry.files.entrySet()) {
+					byte[] content = readResource('/' + file.getValue());
+					String hash = sha256(content);
+					blobs.putIfAbsent(hash, content);
+					files.add(new TemplateFile(file.getKey(), hash));
+				}
+			}
+			templates.put(template.getKey(), new Template(Collections.unmodifiableList(files),
+					entry.openFiles == null ? new String[0] : entry.openFiles));
+		}
+		this.blobs = Collections.unmodifiableMap(blobs);
+		this.templates = Collections.unmodifiableMap(templates);
+	}
+
+	/**
+	 * @return the files of the template, empty for an unknown template
+	 */
+	List<TemplateFile> files(String templateId) {
+		Template template = templateId == null ? null : templates.get(templateId);
+		return template == null ? Collections.emptyList() : template.files;
+	}
+
+	/**
+	 * @return the files of the template to open once it is provisioned
+	 */
+	String[] openFiles(String templateId) {
+		Template template = templateId == null ? null : templates.get(templateId);
+		return template == null ? new String[0] : template.openFiles.clone();
+	}
+
+	ContentSource source(TemplateFile file) {
+		byte[] content = blobs.get(file.hash);
+		return () -> new ByteArrayInputStream(content);
+	}
+
+	/**
+	 * Writes the file to the target, which must not exist yet.
+	 */
+	void write(TemplateFile file, Path target) throws IOException {
+		Files.write(target, blobs.get(file.hash), StandardOpenOption.CREATE_NEW);
+	}
+
+	private static Map<String, TemplateEntry> readManifest() throws IOException {
+		Type type = new TypeToken<LinkedHashMap<String, TemplateEntry>>() {
+		}.getType();
+		try (Reader reader = new InputStreamReader(new ByteArrayInputStream(readResource(MANIFEST)),
+				StandardCharsets.UTF_8)) {
+			Map<String, TemplateEntry> manifest = new Gson().fromJson(reader, type);
+			return manifest == null ? Collections.emptyMap() : manifest;
+		}
+	}
+
+	private static byte[] readResource(String path) throws IOException {
+		try (InputStream in = TemplateStore.class.getResourceAsStream(path)) {
+			if (in == null) {
+				throw new FileNotFoundException(path);
+			}
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+			return content.toByteArray();
+		}
+	}
+
+	private static String sha256(byte[] content) {
+		try {
+			StringBuilder hex = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
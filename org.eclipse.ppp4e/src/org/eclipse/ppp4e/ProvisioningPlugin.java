@@ -15,6 +15,7 @@ package org.eclipse.ppp4e;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.ppp4e.core.ServerPool;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
@@ -34,6 +35,7 @@ public class ProvisioningPlugin extends AbstractUIPlugin {
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		ServerPool.getDefault().shutdown();
 		plugin = null;
 		super.stop(context);
 	}
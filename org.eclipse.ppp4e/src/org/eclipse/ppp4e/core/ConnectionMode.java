@@ -0,0 +1,72 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.util.function.Supplier;
+
+import org.eclipse.ppp4j.server.ProvisioningServer;
+
+/**
+ * How a wizard reaches its provisioning server.
+ */
+public enum ConnectionMode {
+	/**
+	 * The server runs in its own process and is talked to over its standard
+	 * streams.
+	 */
+	PROCESS("Separate process"),
+	/**
+	 * The server runs on a thread of this JVM and is talked to over in-memory
+	 * pipes, see {@link InProcessStreamConnectionProvider}.
+	 */
+	IN_PROCESS("In Eclipse, through the protocol"),
+	/**
+	 * The server runs in this JVM and is called directly, see
+	 * {@link DirectConnectionProvider}.
+	 */
+	DIRECT("In Eclipse, called directly");
+
+	private final String label;
+
+	ConnectionMode(String label) {
+		this.label = label;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * @return the mode with the given name, or {@link #PROCESS} if there is none
+	 */
+	public static ConnectionMode fromName(String name) {
+		for (ConnectionMode mode : values()) {
+			if (mode.name().equals(name)) {
+				return mode;
+			}
+		}
+		return PROCESS;
+	}
+
+	public StreamConnectionProvider createProvider(Supplier<? extends StreamConnectionProvider> processProvider,
+			Supplier<? extends ProvisioningServer> serverFactory) {
+		switch (this) {
+		case IN_PROCESS:
+			return new InProcessStreamConnectionProvider(serverFactory);
+		case DIRECT:
+			return new DirectConnectionProvider(serverFactory);
+		default:
+			return processProvider.get();
+		}
+	}
+}
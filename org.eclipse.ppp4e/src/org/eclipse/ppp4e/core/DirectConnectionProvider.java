@@ -0,0 +1,80 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+
+import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4j.client.DirectDispatcher;
+import org.eclipse.ppp4j.server.ProvisioningServer;
+
+/**
+ * Runs a {@link ProvisioningServer} in this JVM and lets {@link Server} call
+ * it directly, without serializing messages. Parameters and results are copied
+ * on the way in and out so that the client and the server share no state.
+ *
+ * This provider has no streams, {@link Server} recognizes it and dispatches
+ * requests to {@link #getServer()} through a {@link DirectDispatcher}.
+ */
+public class DirectConnectionProvider implements StreamConnectionProvider {
+	private final Supplier<? extends ProvisioningServer> serverFactory;
+	private volatile ProvisioningServer server;
+
+	public DirectConnectionProvider(Supplier<? extends ProvisioningServer> serverFactory) {
+		this.serverFactory = serverFactory;
+	}
+
+	@Override
+	public synchronized boolean start() {
+		if (server != null) {
+			return false;
+		}
+		try {
+			server = serverFactory.get();
+		} catch (RuntimeException e) {
+			ProvisioningPlugin.logError(e);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the server created by the last start, <code>null</code> when
+	 *         stopped
+	 */
+	public ProvisioningServer getServer() {
+		return server;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return null;
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return null;
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		return null;
+	}
+
+	@Override
+	public synchronized void stop() {
+		server = null;
+	}
+}
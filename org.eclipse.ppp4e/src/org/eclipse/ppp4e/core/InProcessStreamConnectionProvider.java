@@ -0,0 +1,105 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4j.server.BoundedPipe;
+import org.eclipse.ppp4j.server.ProvisioningServer;
+
+/**
+ * Runs a {@link ProvisioningServer} on a thread of this JVM instead of in a
+ * separate process. The client and the server exchange the same messages as
+ * over the standard streams of a process, through in-memory pipes.
+ *
+ * The server is created anew on every start. It is read with the default
+ * framing of {@link StreamConnectionProvider#createTransport}, so the server
+ * must not override {@link ProvisioningServer#createTransport} unless this
+ * provider is subclassed to match it.
+ */
+public class InProcessStreamConnectionProvider implements StreamConnectionProvider {
+	private static final int PIPE_CAPACITY = 64 * 1024;
+	private static final AtomicInteger threadCount = new AtomicInteger();
+
+	private final Supplier<? extends ProvisioningServer> serverFactory;
+	private BoundedPipe toServer;
+	private BoundedPipe fromServer;
+	private Thread serverThread;
+
+	public InProcessStreamConnectionProvider(Supplier<? extends ProvisioningServer> serverFactory) {
+		this.serverFactory = serverFactory;
+	}
+
+	@Override
+	public synchronized boolean start() {
+		if (serverThread != null && serverThread.isAlive()) {
+			return false;
+		}
+		ProvisioningServer server;
+		try {
+			server = serverFactory.get();
+		} catch (RuntimeException e) {
+			ProvisioningPlugin.logError(e);
+			return false;
+		}
+		BoundedPipe input = new BoundedPipe(PIPE_CAPACITY);
+		BoundedPipe output = new BoundedPipe(PIPE_CAPACITY);
+		toServer = input;
+		fromServer = output;
+		serverThread = new Thread(() -> server.beginListening(input.getInputStream(), output.getOutputStream()),
+				"ppp4e-in-process-server-" + threadCount.incrementAndGet()); //$NON-NLS-1$
+		serverThread.setDaemon(true);
+		serverThread.start();
+		return true;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return fromServer == null ? null : fromServer.getInputStream();
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return toServer == null ? null : toServer.getOutputStream();
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		// the server writes to the standard error stream of this JVM
+		return null;
+	}
+
+	/**
+	 * Ends the input of the server, which stops once the requests it already
+	 * received are answered.
+	 */
+	@Override
+	public synchronized void stop() {
+		try {
+			if (toServer != null) {
+				toServer.getOutputStream().close();
+			}
+			if (fromServer != null) {
+				fromServer.getInputStream().close();
+			}
+		} catch (IOException e) {
+			ProvisioningPlugin.logError(e);
+		}
+		serverThread = null;
+	}
+}
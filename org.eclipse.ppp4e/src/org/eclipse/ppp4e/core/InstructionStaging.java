@@ -0,0 +1,174 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.eclipse.ppp4j.messages.Instruction;
+import org.eclipse.ppp4j.messages.InstructionChunk;
+
+/**
+ * Writes the chunks of the chunked instructions of a provisionInstructions
+ * request to a staging directory as they arrive, so that a file is never held
+ * in memory. Once the result has arrived, {@link #verify(Instruction)} checks a
+ * staged file against the size and hash the server sent with it.
+ *
+ * Chunks are accepted on the thread reading from the server; a chunk that
+ * cannot be written marks its file as failed and the following chunks of that
+ * file are ignored.
+ */
+public final class InstructionStaging implements Consumer<InstructionChunk>, AutoCloseable {
+	private final Path directory;
+	private final Map<String, FileChannel> openFiles = new ConcurrentHashMap<>();
+	private final Map<String, String> errors = new ConcurrentHashMap<>();
+
+	/**
+	 * @param directory an empty directory, deleted with what it contains on
+	 *                  {@link #close()}
+	 */
+	public InstructionStaging(Path directory) {
+		this.directory = directory.toAbsolutePath().normalize();
+	}
+
+	@Override
+	public void accept(InstructionChunk chunk) {
+		if (chunk.path == null || errors.containsKey(chunk.path)) {
+			return;
+		}
+		try {
+			FileChannel channel = openFiles.get(chunk.path);
+			if (channel == null) {
+				Path file = getStagedFile(chunk.path);
+				Files.createDirectories(file.getParent());
+				channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING);
+				openFiles.put(chunk.path, channel);
+			}
+			ByteBuffer data = ByteBuffer.wrap(Base64.getDecoder().decode(chunk.data == null ? "" : chunk.data));
+			long position = chunk.offset;
+			while (data.hasRemaining()) {
+				position += channel.write(data, position);
+			}
+			if (chunk.last) {
+				openFiles.remove(chunk.path).close();
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			errors.put(chunk.path, String.valueOf(e.getMessage()));
+			closeQuietly(openFiles.remove(chunk.path));
+		}
+	}
+
+	/**
+	 * @return where the content of the instruction with the given path is staged
+	 * @throws IOException if the path leaves the staging directory
+	 */
+	public Path getStagedFile(String path) throws IOException {
+		Path file = directory.resolve(path).normalize();
+		if (!file.startsWith(directory) || file.equals(directory)) {
+			throw new IOException("Invalid file path from the server: " + path);
+		}
+		return file;
+	}
+
+	/**
+	 * Checks that all the chunks of the instruction were staged and that they
+	 * match the size and hash of the instruction.
+	 *
+	 * @return the staged file
+	 */
+	public Path verify(Instruction instruction) throws IOException {
+		String error = errors.get(instruction.path);
+		if (error != null) {
+			throw new IOException("Unable to stage " + instruction.path + ": " + error);
+		}
+		if (openFiles.containsKey(instruction.path)) {
+			throw new IOException("Missing chunks of " + instruction.path);
+		}
+		Path file = getStagedFile(instruction.path);
+		if (!Files.isRegularFile(file)) {
+			throw new IOException("No content received for " + instruction.path);
+		}
+		long size = Files.size(file);
+		if (size != instruction.size) {
+			throw new IOException("Received " + size + " bytes for " + instruction.path + " instead of "
+					+ instruction.size);
+		}
+		if (instruction.sha256 != null && !instruction.sha256.equalsIgnoreCase(sha256(file))) {
+			throw new IOException("Corrupted content received for " + instruction.path);
+		}
+		return file;
+	}
+
+	/**
+	 * Deletes the staging directory and the files left in it.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (String path : openFiles.keySet()) {
+			closeQuietly(openFiles.remove(path));
+		}
+		if (!Files.exists(directory)) {
+			return;
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			// children before their parent
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	private static String sha256(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+			while (in.read(buffer) != -1) {
+				// only digesting
+			}
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		if (channel == null) {
+			return;
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// the file is discarded anyway
+		}
+	}
+}
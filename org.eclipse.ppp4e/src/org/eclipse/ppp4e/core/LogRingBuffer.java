@@ -0,0 +1,96 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size ring of bytes kept off-heap, written by one thread and read by
+ * another. Writes never block or allocate: bytes that do not fit are dropped
+ * and counted.
+ */
+final class LogRingBuffer {
+	private final int capacity;
+	private final ByteBuffer writeView;
+	private final ByteBuffer readView;
+	// total bytes ever written and read, the index in the ring is the remainder
+	private final AtomicLong writePosition = new AtomicLong();
+	private final AtomicLong readPosition = new AtomicLong();
+	private final AtomicLong droppedBytes = new AtomicLong();
+
+	LogRingBuffer(int capacity) {
+		this.capacity = capacity;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+		this.writeView = buffer.duplicate();
+		this.readView = buffer.duplicate();
+	}
+
+	/**
+	 * Copies the bytes in the ring, or drops all of them when the ring does not
+	 * have room for them.
+	 *
+	 * @return whether the bytes were copied
+	 */
+	boolean write(byte[] bytes, int offset, int length) {
+		if (length <= 0) {
+			return true;
+		}
+		long write = writePosition.get();
+		if (length > capacity - (write - readPosition.get())) {
+			droppedBytes.addAndGet(length);
+			return false;
+		}
+		int index = (int) (write % capacity);
+		int firstPart = Math.min(length, capacity - index);
+		writeView.clear();
+		writeView.position(index);
+		writeView.put(bytes, offset, firstPart);
+		if (firstPart < length) {
+			writeView.clear();
+			writeView.put(bytes, offset + firstPart, length - firstPart);
+		}
+		writePosition.lazySet(write + length);
+		return true;
+	}
+
+	/**
+	 * @return the number of bytes moved to the destination, 0 when the ring is
+	 *         empty
+	 */
+	int read(byte[] destination) {
+		long read = readPosition.get();
+		int length = (int) Math.min(destination.length, writePosition.get() - read);
+		if (length == 0) {
+			return 0;
+		}
+		int index = (int) (read % capacity);
+		int firstPart = Math.min(length, capacity - index);
+		readView.clear();
+		readView.position(index);
+		readView.get(destination, 0, firstPart);
+		if (firstPart < length) {
+			readView.clear();
+			readView.get(destination, firstPart, length - firstPart);
+		}
+		readPosition.lazySet(read + length);
+		return length;
+	}
+
+	/**
+	 * @return the number of bytes dropped since the last call
+	 */
+	long takeDroppedBytes() {
+		return droppedBytes.getAndSet(0);
+	}
+}
@@ -12,13 +12,20 @@
  *******************************************************************************/
 package org.eclipse.ppp4e.core;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4j.server.MessageTransport;
 import org.eclipse.ui.console.ConsolePlugin;
 import org.eclipse.ui.console.IConsole;
 import org.eclipse.ui.console.IConsoleManager;
@@ -27,10 +34,26 @@ import org.eclipse.ui.console.MessageConsoleStream;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 
+/**
+ * Copies everything exchanged with the server to the console.
+ *
+ * The I/O threads only copy the raw bytes in an off-heap {@link LogRingBuffer}
+ * per stream, a background drainer splits them back into whole messages and
+ * prints them to the console in batches. When the drainer falls behind, bytes
+ * are dropped from the log rather than slowing the protocol down. A message
+ * that cannot be formatted is logged as received, and when the console cannot
+ * be used the batch goes to the standard error instead, so the drainer keeps
+ * running whatever it is given.
+ */
 public class LoggingStreamConnectionProviderProxy implements StreamConnectionProvider {
 	private static final boolean FORMATTING = Boolean.parseBoolean(System.getProperty("ppp.logging.formatting")); //$NON-NLS-1$
-	private Gson gson;
+	private static final int BUFFER_SIZE = Integer.getInteger("ppp.logging.bufferSize", 256 * 1024); //$NON-NLS-1$
+	private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	private static final AtomicInteger drainerCount = new AtomicInteger();
 
 	private StreamConnectionProvider provider;
 	private String serverName;
@@ -38,17 +61,25 @@ public class LoggingStreamConnectionProviderProxy implements StreamConnectionPro
 	private OutputStream outputStream;
 	private InputStream errorStream;
 
+	private final LogRingBuffer inputLog = new LogRingBuffer(BUFFER_SIZE);
+	private final LogRingBuffer outputLog = new LogRingBuffer(BUFFER_SIZE);
+	private final LogRingBuffer errorLog = new LogRingBuffer(BUFFER_SIZE);
+	private Drainer drainer;
+
 	public LoggingStreamConnectionProviderProxy(StreamConnectionProvider provider, String serverName) {
 		this.provider = provider;
 		this.serverName = serverName;
-		if (FORMATTING) {
-			gson = new GsonBuilder().setPrettyPrinting().create();
-		}
 	}
 
 	@Override
 	public boolean start() {
-		return provider.start();
+		boolean started = provider.start();
+		if (started) {
+			drainer = new Drainer();
+			drainer.start();
+			startErrorPump();
+		}
+		return started;
 	}
 
 	@Override
@@ -57,24 +88,7 @@ public class LoggingStreamConnectionProviderProxy implements StreamConnectionPro
 			return inputStream;
 		}
 		if (provider.getInputStream() != null) {
-			inputStream = new FilterInputStream(provider.getInputStream()) {
-				@Override
-				public int read(byte[] b, int off, int len) throws IOException {
-					int bytes = super.read(b, off, len);
-					byte[] payload = new byte[bytes];
-					System.arraycopy(b, off, payload, 0, bytes);
-					String message = new String(payload);
-					if (FORMATTING) {
-						if (message != null) {
-							logToConsole(serverName + " to PPP4E:"
-									+ gson.toJson(gson.fromJson(message, Object.class)));
-						}
-					} else {
-						logToConsole(serverName + " to PPP4E:" + message);
-					}
-					return bytes;
-				}
-			};
+			inputStream = new LoggingInputStream(provider.getInputStream(), inputLog);
 		}
 		return inputStream;
 	}
@@ -88,16 +102,13 @@ public class LoggingStreamConnectionProviderProxy implements StreamConnectionPro
 			outputStream = new FilterOutputStream(provider.getOutputStream()) {
 				@Override
 				public void write(byte[] b, int off, int len) throws IOException {
-					String message = new String(b, off, len);
-					if (FORMATTING) {
-						if (message != null) {
-							logToConsole("PPP4E to " + serverName + ":"
-									+ gson.toJson(gson.fromJson(message, Object.class)));
-						}
-					} else {
-						logToConsole("PPP4E to " + serverName + ":" + message);
-					}
-					super.write(b, off, len);
+					outputLog.write(b, off, len);
+					out.write(b, off, len);
+				}
+
+				@Override
+				public void write(int b) throws IOException {
+					write(new byte[] { (byte) b }, 0, 1);
 				}
 			};
 		}
@@ -110,20 +121,39 @@ public class LoggingStreamConnectionProviderProxy implements StreamConnectionPro
 			return errorStream;
 		}
 		if (provider.getErrorStream() != null) {
-			errorStream = new FilterInputStream(provider.getErrorStream()) {
-				@Override
-				public int read(byte[] b, int off, int len) throws IOException {
-					int bytes = super.read(b, off, len);
-					byte[] payload = new byte[bytes];
-					System.arraycopy(b, off, payload, 0, bytes);
-					logToConsole("Error from " + serverName + ":" + new String(payload));
-					return bytes;
-				}
-			};
+			errorStream = new LoggingInputStream(provider.getErrorStream(), errorLog);
 		}
 		return errorStream;
 	}
 
+	/**
+	 * Reads the error stream of the server in the background so that it is
+	 * logged, and so that the server never blocks on a full stderr pipe.
+	 */
+	private void startErrorPump() {
+		InputStream stream = getErrorStream();
+		if (stream == null) {
+			return;
+		}
+		Thread pump = new Thread(() -> {
+			byte[] buffer = new byte[4096];
+			try {
+				while (stream.read(buffer, 0, buffer.length) != -1) {
+					// logged by the stream
+				}
+			} catch (IOException e) {
+				// stream closed with the server
+			}
+		}, "ppp4e-stderr-" + serverName); //$NON-NLS-1$
+		pump.setDaemon(true);
+		pump.start();
+	}
+
+	@Override
+	public MessageTransport createTransport(InputStream inputStream, OutputStream outputStream) {
+		return provider.createTransport(inputStream, outputStream);
+	}
+
 	@Override
 	public void stop() {
 		provider.stop();
@@ -143,16 +173,187 @@ public class LoggingStreamConnectionProviderProxy implements StreamConnectionPro
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		if (drainer != null) {
+			drainer.finish();
+			drainer = null;
+		}
+	}
+
+	private static class LoggingInputStream extends FilterInputStream {
+		private final LogRingBuffer log;
+
+		LoggingInputStream(InputStream in, LogRingBuffer log) {
+			super(in);
+			this.log = log;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int bytes = in.read(b, off, len);
+			if (bytes > 0) {
+				log.write(b, off, bytes);
+			}
+			return bytes;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+		}
 	}
 
-	private void logToConsole(String string) {
-		if (consoleStream == null || consoleStream.isClosed()) {
-			consoleStream = findConsole().newMessageStream();
+	/**
+	 * Moves the logged bytes to the console, off the I/O threads.
+	 */
+	private class Drainer extends Thread {
+		private final byte[] chunk = new byte[8192];
+		private final MessageSplitter inputMessages = new MessageSplitter(true);
+		private final MessageSplitter outputMessages = new MessageSplitter(true);
+		private final MessageSplitter errorLines = new MessageSplitter(false);
+		private final Gson gson = FORMATTING ? new GsonBuilder().setPrettyPrinting().create() : null;
+		private final StringBuilder batch = new StringBuilder();
+		private volatile boolean running = true;
+		private MessageConsoleStream consoleStream;
+		// set once the console classes failed to load, they will not load later
+		private boolean consoleUnavailable;
+
+		Drainer() {
+			super("ppp4e-log-drainer-" + drainerCount.incrementAndGet()); //$NON-NLS-1$
+			setDaemon(true);
+		}
+
+		void finish() {
+			running = false;
+			LockSupport.unpark(this);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				boolean stopping = !running;
+				drain(inputLog, inputMessages, serverName + " to PPP4E:");
+				drain(outputLog, outputMessages, "PPP4E to " + serverName + ":");
+				drain(errorLog, errorLines, "Error from " + serverName + ":");
+				if (batch.length() > 0) {
+					logToConsole(batch.toString());
+					batch.setLength(0);
+				}
+				if (stopping) {
+					return;
+				}
+				LockSupport.parkNanos(this, DRAIN_INTERVAL_NANOS);
+			}
+		}
+
+		private void drain(LogRingBuffer log, MessageSplitter splitter, String prefix) {
+			long dropped = log.takeDroppedBytes();
+			if (dropped > 0) {
+				splitter.reset();
+				batch.append(prefix).append(" [").append(dropped).append(" bytes not logged]\n");
+			}
+			int length;
+			while ((length = log.read(chunk)) > 0) {
+				splitter.append(chunk, length, message -> batch.append(prefix).append(format(message)).append('\n'));
+			}
+		}
+
+		private String format(String message) {
+			if (gson == null) {
+				return message;
+			}
+			try {
+				JsonElement element = new JsonParser().parse(message);
+				return gson.toJson(element);
+			} catch (JsonParseException | LinkageError | StackOverflowError e) {
+				// not JSON, nested too deep or Gson unavailable
+				return message;
+			}
+		}
+
+		private void logToConsole(String string) {
+			if (!consoleUnavailable) {
+				try {
+					if (consoleStream == null || consoleStream.isClosed()) {
+						consoleStream = findConsole().newMessageStream();
+					}
+					consoleStream.print(string);
+					return;
+				} catch (LinkageError e) {
+					consoleUnavailable = true;
+				} catch (RuntimeException e) {
+					// console unavailable, e.g. during shutdown
+					consoleStream = null;
+				}
+			}
+			System.err.print(string);
+		}
+	}
+
+	/**
+	 * Cuts a byte stream back into the messages it carries: whole JSON values
+	 * whatever the framing around them, or lines.
+	 */
+	private static class MessageSplitter {
+		private final boolean json;
+		private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+		private int depth;
+		private boolean inString;
+		private boolean escaped;
+
+		MessageSplitter(boolean json) {
+			this.json = json;
+		}
+
+		void reset() {
+			current.reset();
+			depth = 0;
+			inString = false;
+			escaped = false;
+		}
+
+		void append(byte[] bytes, int length, Consumer<String> messages) {
+			for (int i = 0; i < length; i++) {
+				byte b = bytes[i];
+				if (!json) {
+					if (b == '\n') {
+						emit(messages);
+					} else if (b != '\r') {
+						current.write(b);
+					}
+					continue;
+				}
+				if (depth == 0 && b != '{' && b != '[') {
+					// framing between messages
+					continue;
+				}
+				current.write(b);
+				if (inString) {
+					if (escaped) {
+						escaped = false;
+					} else if (b == '\\') {
+						escaped = true;
+					} else if (b == '"') {
+						inString = false;
+					}
+				} else if (b == '"') {
+					inString = true;
+				} else if (b == '{' || b == '[') {
+					depth++;
+				} else if ((b == '}' || b == ']') && --depth == 0) {
+					emit(messages);
+				}
+			}
+		}
+
+		private void emit(Consumer<String> messages) {
+			if (current.size() > 0) {
+				messages.accept(new String(current.toByteArray(), StandardCharsets.UTF_8));
+			}
+			current.reset();
 		}
-		consoleStream.println(string);
 	}
 
-	private MessageConsoleStream consoleStream;
 	private MessageConsole findConsole() {
 		ConsolePlugin plugin = ConsolePlugin.getDefault();
 		IConsoleManager conMan = plugin.getConsoleManager();
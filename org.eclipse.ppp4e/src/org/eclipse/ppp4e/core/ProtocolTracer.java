@@ -0,0 +1,216 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.ppp4j.server.LatencyHistogram;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Keeps one record per request exchanged with the provisioning servers, and
+ * per server and method histograms of how long the requests waited to be
+ * written, waited for the server, and took overall.
+ *
+ * Starting a server process is traced as the <code>$start</code> method.
+ */
+public class ProtocolTracer {
+	public static final String START_METHOD = "$start"; //$NON-NLS-1$
+	private static final int RECENT_RECORDS = 256;
+	private static final ProtocolTracer DEFAULT = new ProtocolTracer(RECENT_RECORDS);
+
+	private final Map<String, MethodStatistics> statistics = new ConcurrentHashMap<>();
+	private final Record[] recentRecords;
+	private int nextRecord;
+	private long recordCount;
+
+	public ProtocolTracer(int recentRecordCount) {
+		this.recentRecords = new Record[recentRecordCount];
+	}
+
+	public static ProtocolTracer getDefault() {
+		return DEFAULT;
+	}
+
+	public void record(Record record) {
+		statistics.computeIfAbsent(record.server + ' ' + record.method,
+				key -> new MethodStatistics(record.server, record.method)).add(record);
+		synchronized (recentRecords) {
+			recentRecords[nextRecord] = record;
+			nextRecord = (nextRecord + 1) % recentRecords.length;
+			recordCount++;
+		}
+	}
+
+	public List<MethodStatistics> getStatistics() {
+		return new ArrayList<>(statistics.values());
+	}
+
+	/**
+	 * @return the latest records, oldest first
+	 */
+	public List<Record> getRecentRecords() {
+		synchronized (recentRecords) {
+			int size = (int) Math.min(recordCount, recentRecords.length);
+			List<Record> records = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				records.add(recentRecords[(nextRecord - size + i + recentRecords.length) % recentRecords.length]);
+			}
+			return records;
+		}
+	}
+
+	public void reset() {
+		statistics.clear();
+		synchronized (recentRecords) {
+			Arrays.fill(recentRecords, null);
+			nextRecord = 0;
+			recordCount = 0;
+		}
+	}
+
+	/**
+	 * Writes the statistics, in milliseconds, and the latest records as JSON.
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		List<Map<String, Object>> methods = new ArrayList<>();
+		for (MethodStatistics methodStatistics : getStatistics()) {
+			methods.add(methodStatistics.toMap());
+		}
+		Map<String, Object> trace = new LinkedHashMap<>();
+		trace.put("methods", methods); //$NON-NLS-1$
+		trace.put("recent", getRecentRecords()); //$NON-NLS-1$
+		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		gson.toJson(trace, writer);
+		writer.flush();
+	}
+
+	/**
+	 * One request and its response. Durations are in nanoseconds, those that
+	 * could not be measured because the request failed are -1.
+	 */
+	public static class Record {
+		public final long timestamp;
+		public final String server;
+		public final String method;
+		public final String id;
+		public final long bytesOut;
+		public final long bytesIn;
+		public final long queueNanos;
+		public final long serverNanos;
+		public final long totalNanos;
+		public final boolean failed;
+
+		public Record(String server, String method, String id, long bytesOut, long bytesIn, long queueNanos,
+				long serverNanos, long totalNanos, boolean failed) {
+			this.timestamp = System.currentTimeMillis();
+			this.server = server;
+			this.method = method;
+			this.id = id;
+			this.bytesOut = bytesOut;
+			this.bytesIn = bytesIn;
+			this.queueNanos = queueNanos;
+			this.serverNanos = serverNanos;
+			this.totalNanos = totalNanos;
+			this.failed = failed;
+		}
+	}
+
+	public static class MethodStatistics {
+		public final String server;
+		public final String method;
+		public final LatencyHistogram queueTime = new LatencyHistogram();
+		public final LatencyHistogram serverTime = new LatencyHistogram();
+		public final LatencyHistogram totalTime = new LatencyHistogram();
+		private final AtomicLong failures = new AtomicLong();
+		private final AtomicLong bytesOut = new AtomicLong();
+		private final AtomicLong bytesIn = new AtomicLong();
+
+		MethodStatistics(String server, String method) {
+			this.server = server;
+			this.method = method;
+		}
+
+		void add(Record record) {
+			if (record.failed) {
+				failures.incrementAndGet();
+			}
+			bytesOut.addAndGet(Math.max(0, record.bytesOut));
+			bytesIn.addAndGet(Math.max(0, record.bytesIn));
+			if (record.queueNanos >= 0) {
+				queueTime.record(record.queueNanos);
+			}
+			if (record.serverNanos >= 0) {
+				serverTime.record(record.serverNanos);
+			}
+			if (record.totalNanos >= 0) {
+				totalTime.record(record.totalNanos);
+			}
+		}
+
+		public long getFailures() {
+			return failures.get();
+		}
+
+		public long getBytesOut() {
+			return bytesOut.get();
+		}
+
+		public long getBytesIn() {
+			return bytesIn.get();
+		}
+
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("server", server); //$NON-NLS-1$
+			map.put("method", method); //$NON-NLS-1$
+			map.put("count", totalTime.getCount()); //$NON-NLS-1$
+			map.put("failures", getFailures()); //$NON-NLS-1$
+			map.put("bytesOut", getBytesOut()); //$NON-NLS-1$
+			map.put("bytesIn", getBytesIn()); //$NON-NLS-1$
+			map.put("queueTime", histogramToMap(queueTime)); //$NON-NLS-1$
+			map.put("serverTime", histogramToMap(serverTime)); //$NON-NLS-1$
+			map.put("totalTime", histogramToMap(totalTime)); //$NON-NLS-1$
+			return map;
+		}
+
+		private static Map<String, Object> histogramToMap(LatencyHistogram histogram) {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("mean", toMillis(histogram.getMean())); //$NON-NLS-1$
+			map.put("p50", toMillis(histogram.getValueAtPercentile(50))); //$NON-NLS-1$
+			map.put("p90", toMillis(histogram.getValueAtPercentile(90))); //$NON-NLS-1$
+			map.put("p99", toMillis(histogram.getValueAtPercentile(99))); //$NON-NLS-1$
+			map.put("max", toMillis(histogram.getMax())); //$NON-NLS-1$
+			return map;
+		}
+
+		private static double toMillis(long nanos) {
+			return nanos / 1_000_000d;
+		}
+
+		@Override
+		public String toString() {
+			return server + ' ' + method + ": " + totalTime + " failures=" + getFailures(); //$NON-NLS-1$
+		}
+	}
+}
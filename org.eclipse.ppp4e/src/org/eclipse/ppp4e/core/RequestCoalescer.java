@@ -0,0 +1,115 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Debounces a stream of requests where only the latest one matters, such as
+ * validating the wizard inputs on every keystroke.
+ *
+ * A request is only sent once no newer one has been made for the debounce
+ * delay. Making a new request cancels the previous one, whether it is still
+ * waiting or already sent, and a result is only handed to its consumer while
+ * its request is the latest one.
+ *
+ * @param <P> the type of the request parameters
+ * @param <R> the type of the result
+ */
+public class RequestCoalescer<P, R> {
+	private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+	private final Function<P, CompletableFuture<R>> sender;
+	private final long delayMillis;
+
+	private long generation;
+	private Future<?> scheduled;
+	private CompletableFuture<R> inFlight;
+
+	/**
+	 * @param sender      sends a request and returns its result
+	 * @param delayMillis how long to wait for newer requests before sending one
+	 */
+	public RequestCoalescer(Function<P, CompletableFuture<R>> sender, long delayMillis) {
+		this.sender = sender;
+		this.delayMillis = delayMillis;
+	}
+
+	/**
+	 * Replaces any previous request with this one.
+	 *
+	 * @param params   the request parameters, they must not be modified afterwards
+	 * @param consumer receives the result if no newer request was made by then
+	 */
+	public synchronized void request(P params, Consumer<R> consumer) {
+		cancelPending();
+		long requestGeneration = ++generation;
+		scheduled = SCHEDULER.schedule(() -> send(requestGeneration, params, consumer), delayMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Drops the latest request, its result will not be handed to its consumer.
+	 */
+	public synchronized void cancel() {
+		cancelPending();
+		generation++;
+	}
+
+	private void send(long requestGeneration, P params, Consumer<R> consumer) {
+		CompletableFuture<R> future;
+		synchronized (this) {
+			if (requestGeneration != generation) {
+				return;
+			}
+			future = sender.apply(params);
+			inFlight = future;
+		}
+		future.thenAccept(result -> {
+			if (isLatest(requestGeneration)) {
+				consumer.accept(result);
+			}
+		});
+	}
+
+	private synchronized boolean isLatest(long requestGeneration) {
+		return requestGeneration == generation;
+	}
+
+	private void cancelPending() {
+		if (scheduled != null) {
+			scheduled.cancel(false);
+			scheduled = null;
+		}
+		if (inFlight != null) {
+			inFlight.cancel(false);
+			inFlight = null;
+		}
+	}
+
+	private static ScheduledExecutorService createScheduler() {
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "ppp4e-request-coalescer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+}
@@ -0,0 +1,119 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded least recently used cache of request results. Results expire after
+ * a time to live, since the ones of validation depend on the file system.
+ */
+class ResultCache {
+	private final Map<String, CachedResult> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private volatile long timeToLiveNanos;
+	// incremented by clear, so that a result requested before is not stored after
+	private long generation;
+
+	ResultCache(int capacity, long timeToLive, TimeUnit unit) {
+		entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+				return size() > capacity;
+			}
+		};
+		setTimeToLive(timeToLive, unit);
+	}
+
+	/**
+	 * @param timeToLive how long a result is used, 0 or less to not cache
+	 *                   results
+	 */
+	void setTimeToLive(long timeToLive, TimeUnit unit) {
+		timeToLiveNanos = unit.toNanos(timeToLive);
+	}
+
+	<T> T get(String key, Class<T> type) {
+		Object result = null;
+		synchronized (entries) {
+			CachedResult entry = entries.get(key);
+			if (entry != null && System.nanoTime() - entry.expiresNanos >= 0) {
+				entries.remove(key);
+			} else if (entry != null) {
+				result = entry.result;
+			}
+		}
+		if (type.isInstance(result)) {
+			hits.incrementAndGet();
+			return type.cast(result);
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * @return the generation to pass to {@link #put(String, Object, long)} for a
+	 *         result requested now
+	 */
+	long getGeneration() {
+		synchronized (entries) {
+			return generation;
+		}
+	}
+
+	/**
+	 * Stores the result, unless the cache was cleared since it was requested.
+	 */
+	void put(String key, Object result, long requestGeneration) {
+		long timeToLive = timeToLiveNanos;
+		if (timeToLive <= 0) {
+			return;
+		}
+		synchronized (entries) {
+			if (requestGeneration == generation) {
+				entries.put(key, new CachedResult(result, System.nanoTime() + timeToLive));
+			}
+		}
+	}
+
+	void clear() {
+		synchronized (entries) {
+			generation++;
+			entries.clear();
+		}
+	}
+
+	long getHits() {
+		return hits.get();
+	}
+
+	long getMisses() {
+		return misses.get();
+	}
+
+	private static class CachedResult {
+		final Object result;
+		final long expiresNanos;
+
+		CachedResult(Object result, long expiresNanos) {
+			this.result = result;
+			this.expiresNanos = expiresNanos;
+		}
+	}
+}
@@ -12,144 +12,457 @@
  *******************************************************************************/
 package org.eclipse.ppp4e.core;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4j.client.DirectDispatcher;
+import org.eclipse.ppp4j.client.PendingRequest;
+import org.eclipse.ppp4j.client.PendingRequestTable;
+import org.eclipse.ppp4j.messages.CancelParams;
 import org.eclipse.ppp4j.messages.Initialize;
 import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.Instruction;
+import org.eclipse.ppp4j.messages.InstructionChunk;
 import org.eclipse.ppp4j.messages.PreviewResult;
+import org.eclipse.ppp4j.messages.Progress;
+import org.eclipse.ppp4j.messages.ProvisionBatchResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
 import org.eclipse.ppp4j.messages.ProvisionResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
 import org.eclipse.ppp4j.messages.RpcRequest;
-import org.eclipse.ppp4j.messages.RpcResponse;
 import org.eclipse.ppp4j.messages.ValidationResult;
+import org.eclipse.ppp4j.server.MalformedMessageException;
+import org.eclipse.ppp4j.server.MessageTransport;
+import org.eclipse.ppp4j.server.ProvisioningServer;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
 
 public class Server {
+	private static final ScheduledExecutorService TIMEOUTS = createTimeoutScheduler();
+	private static final int RESULT_CACHE_SIZE = 64;
+
 	private String baseMethod = "projectProvisioning/";
 	StreamConnectionProvider streamConnectionProvider;
-	Map<Integer, Semaphore> messageResponseSemaphores = new HashMap<>();
-	Map<Integer, Object> messageResponses = new HashMap<>();
-	private Integer nextMessageId = 0;
+	private final PendingRequestTable pendingRequests;
 	private Gson gson = new Gson();
-	private PrintWriter writer;
-	private BufferedReader reader;
+	private MessageTransport transport;
+	private ExecutorService writerExecutor;
+	private final DirectConnectionProvider directConnectionProvider;
+	private DirectDispatcher directDispatcher;
+	private long requestTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+	private final ResultCache resultCache = new ResultCache(RESULT_CACHE_SIZE, 5, TimeUnit.SECONDS);
+	private volatile boolean connected;
+	private CompletableFuture<InitializeResult> initializeResult;
+
+	private String serverName;
+	private final ProtocolTracer tracer = ProtocolTracer.getDefault();
 
 	public Server(StreamConnectionProvider streamConnectionProvider, String serverName) {
-		this.streamConnectionProvider = new LoggingStreamConnectionProviderProxy(streamConnectionProvider, serverName);
+		this.serverName = serverName;
+		this.pendingRequests = new PendingRequestTable(serverName, ProvisioningPlugin::logError);
+		if (streamConnectionProvider instanceof DirectConnectionProvider) {
+			// nothing goes through streams to log
+			this.directConnectionProvider = (DirectConnectionProvider) streamConnectionProvider;
+			this.streamConnectionProvider = streamConnectionProvider;
+		} else {
+			this.directConnectionProvider = null;
+			this.streamConnectionProvider = new LoggingStreamConnectionProviderProxy(streamConnectionProvider,
+					serverName);
+		}
 	}
 
 	public boolean openConnection() {
-		if (!streamConnectionProvider.start()) {
+		long startNanos = System.nanoTime();
+		boolean started = streamConnectionProvider.start();
+		tracer.record(new ProtocolTracer.Record(serverName, ProtocolTracer.START_METHOD, null, 0, 0, -1, -1,
+				System.nanoTime() - startNanos, !started));
+		if (!started) {
 			return false;
 		}
-		writer = new PrintWriter(streamConnectionProvider.getOutputStream());
+		resultCache.clear();
+		synchronized (this) {
+			initializeResult = null;
+		}
+		if (directConnectionProvider != null) {
+			directDispatcher = new DirectDispatcher(directConnectionProvider.getServer(), pendingRequests,
+					serverName);
+			connected = true;
+			return true;
+		}
+		transport = streamConnectionProvider.createTransport(streamConnectionProvider.getInputStream(),
+				streamConnectionProvider.getOutputStream());
+		writerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ppp4e-writer-" + serverName);
+			thread.setDaemon(true);
+			return thread;
+		});
+		connected = true;
 		listenForMessages();
 		return true;
 	}
 
+	/**
+	 * @return whether the connection is open and the server has not closed its
+	 *         output
+	 */
+	public boolean isConnected() {
+		return connected;
+	}
+
+	/**
+	 * Sends a {@link ProvisioningServer#PING_METHOD} request, which the server
+	 * answers without waiting for its busy workers.
+	 *
+	 * @return whether the server answered within the timeout
+	 */
+	public boolean isResponsive(long timeout, TimeUnit unit) {
+		if (!connected) {
+			return false;
+		}
+		try {
+			sendMessage(ProvisioningServer.PING_METHOD, null, Object.class, unit.toMillis(timeout)).get();
+			return true;
+		} catch (ExecutionException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
 	public void closeConnection() {
+		connected = false;
+		if (writerExecutor != null) {
+			writerExecutor.shutdownNow();
+		}
+		if (directDispatcher != null) {
+			directDispatcher.shutdown();
+		}
 		streamConnectionProvider.stop();
-		if (reader != null) {
+		if (transport != null) {
 			try {
-				reader.close();
+				transport.close();
 			} catch (IOException e) {
 				ProvisioningPlugin.logError(e);
 			}
 		}
-		if (writer != null) {
-			writer.close();
-		}
+		failPendingRequests();
+		resultCache.clear();
+	}
+
+	/**
+	 * Sets how long validation and preview results are reused for equal
+	 * parameters. They are also dropped whenever a project is provisioned,
+	 * since provisioning changes what validation finds on the file system.
+	 *
+	 * @param timeToLive the time to live, 0 or less to not cache results
+	 */
+	public void setResultCacheTimeToLive(long timeToLive, TimeUnit unit) {
+		resultCache.setTimeToLive(timeToLive, unit);
+	}
+
+	/**
+	 * Drops the cached validation and preview results, for callers that change
+	 * the file system themselves, such as by writing provisioning instructions.
+	 */
+	public void clearResultCache() {
+		resultCache.clear();
+	}
+
+	/**
+	 * @return how many validation and preview requests were answered from the
+	 *         result cache
+	 */
+	public long getResultCacheHits() {
+		return resultCache.getHits();
+	}
+
+	/**
+	 * @return how many validation and preview requests had to be sent to the
+	 *         server
+	 */
+	public long getResultCacheMisses() {
+		return resultCache.getMisses();
+	}
+
+	/**
+	 * Sets how long initialization, validation and preview requests wait for
+	 * their response before they fail with a {@link TimeoutException}.
+	 * Provisioning is not limited since it can legitimately take long.
+	 *
+	 * @param timeout the timeout, 0 or less to wait indefinitely
+	 */
+	public void setRequestTimeout(long timeout, TimeUnit unit) {
+		this.requestTimeoutMillis = unit.toMillis(timeout);
 	}
 
 	public CompletableFuture<InitializeResult> Initalize() {
-		return sendMessage("initalize", new Initialize(true, true)).thenApply(object -> {
-			return gson.fromJson(gson.toJson(object), InitializeResult.class);
-		});
+		return Initalize(null);
+	}
+
+	/**
+	 * Initializes the server once per connection, later calls share the result
+	 * of the first one unless it failed.
+	 *
+	 * @param cachedResult a result from an earlier session, or <code>null</code>.
+	 *                     It is returned instead of a new one when the server
+	 *                     reports that it is unchanged.
+	 */
+	public synchronized CompletableFuture<InitializeResult> Initalize(InitializeResult cachedResult) {
+		if (initializeResult == null || initializeResult.isCompletedExceptionally()
+				|| initializeResult.isCancelled()) {
+			Initialize initialize = new Initialize(true, true, cachedResult == null ? null : cachedResult.hash);
+			// progress and instruction chunks are read by listenForMessages
+			initialize.notificationsSupported = true;
+			initializeResult = sendMessage("initalize", initialize,
+					InitializeResult.class, requestTimeoutMillis).thenApply(result -> {
+						if (result != null && result.unchanged && cachedResult != null) {
+							return cachedResult;
+						}
+						return result;
+					});
+		}
+		return initializeResult;
 	}
 
 	public CompletableFuture<ValidationResult> Validation(ProvisioningParameters parameters) {
-		return sendMessage("validation", parameters).thenApply(object -> {
-			return gson.fromJson(gson.toJson(object), ValidationResult.class);
-		});
+		return sendCachedMessage("validation", parameters, ValidationResult.class);
 	}
 
 	public CompletableFuture<PreviewResult> Preview(ProvisioningParameters parameters) {
-		return sendMessage("preview", parameters).thenApply(object -> {
-			return gson.fromJson(gson.toJson(object), PreviewResult.class);
-		});
+		return sendCachedMessage("preview", parameters, PreviewResult.class);
 	}
 
 	public CompletableFuture<ProvisionResult> Provision(ProvisioningParameters parameters) {
-		return sendMessage("provision", parameters).thenApply(object -> {
-			return gson.fromJson(gson.toJson(object), ProvisionResult.class);
+		return Provision(parameters, null);
+	}
+
+	/**
+	 * Provisions a project, passing the progress the server reports to the
+	 * listener. The listener is called on the thread reading from the server.
+	 * Cancelling the returned future asks the server to stop provisioning.
+	 */
+	public CompletableFuture<ProvisionResult> Provision(ProvisioningParameters parameters,
+			Consumer<Progress> progressListener) {
+		return clearResultCacheAround(
+				sendMessage("provision", parameters, ProvisionResult.class, 0, progressListener));
+	}
+
+	/**
+	 * Asks for the files of the project instead of having the server write
+	 * them, for servers whose {@link InitializeResult#provisionInstructionsSupported}
+	 * is set.
+	 */
+	public CompletableFuture<ProvisionInstructionsResult> ProvisionInstructions(ProvisioningParameters parameters) {
+		return ProvisionInstructions(parameters, null);
+	}
+
+	/**
+	 * Asks for the files of the project, passing the content of its
+	 * {@link Instruction#chunked} instructions to the listener as it arrives.
+	 * The listener is called on the thread reading from the server, in the order
+	 * the chunks were sent. Without a listener the chunks are dropped. When the
+	 * server is called directly no chunk is sent, the content is read from
+	 * {@link Instruction#source} instead.
+	 */
+	public CompletableFuture<ProvisionInstructionsResult> ProvisionInstructions(ProvisioningParameters parameters,
+			Consumer<InstructionChunk> chunkListener) {
+		return clearResultCacheAround(sendMessage("provisionInstructions", parameters,
+				ProvisionInstructionsResult.class, 0, null, chunkListener));
+	}
+
+	/**
+	 * Provisions several projects in one request. The result of each project is
+	 * passed to the listener as soon as it is done, as the
+	 * {@link Progress#result} of the project at {@link Progress#index}.
+	 *
+	 * @see #Provision(ProvisioningParameters, Consumer)
+	 */
+	public CompletableFuture<ProvisionBatchResult> ProvisionBatch(ProvisioningParameters[] parameters,
+			Consumer<Progress> progressListener) {
+		return clearResultCacheAround(
+				sendMessage("provisionBatch", parameters, ProvisionBatchResult.class, 0, progressListener));
+	}
+
+	/**
+	 * Drops the cached results when a provisioning request is sent and again
+	 * once it is done, so that validation sees the files it creates.
+	 */
+	private <T> CompletableFuture<T> clearResultCacheAround(CompletableFuture<T> provisioning) {
+		resultCache.clear();
+		provisioning.whenComplete((result, error) -> resultCache.clear());
+		return provisioning;
+	}
+
+	/**
+	 * Answers from the result cache when the same method was recently called
+	 * with equal parameters on this connection. The key is the method with the
+	 * parameters serialized in their canonical form, which is taken before the
+	 * caller can modify them.
+	 */
+	private <T> CompletableFuture<T> sendCachedMessage(String method, ProvisioningParameters parameters,
+			Class<T> resultType) {
+		String key = method + ':' + gson.toJson(parameters);
+		T cachedResult = resultCache.get(key, resultType);
+		if (cachedResult != null) {
+			return CompletableFuture.completedFuture(cachedResult);
+		}
+		long generation = resultCache.getGeneration();
+		CompletableFuture<T> future = sendMessage(method, parameters, resultType, requestTimeoutMillis);
+		future.thenAccept(result -> {
+			if (result != null) {
+				resultCache.put(key, result, generation);
+			}
 		});
+		return future;
 	}
 
-	private CompletableFuture<Object> sendMessage(String method, Object params) {
-		CompletableFuture<Object> completableFuture = CompletableFuture.supplyAsync(() -> {
-			final int id = nextMessageId;
-			nextMessageId++;
-			RpcRequest request = new RpcRequest(String.valueOf(id), baseMethod + method, params);
-			writer.println(gson.toJson(request));
-			writer.flush();
-			System.out.println("client2server: " + gson.toJson(request));
+	private <T> CompletableFuture<T> sendMessage(String method, Object params, Class<T> resultType,
+			long timeoutMillis) {
+		return sendMessage(method, params, resultType, timeoutMillis, null);
+	}
 
-			Semaphore responseSemaphore = new Semaphore(0);
-			messageResponseSemaphores.put(id, responseSemaphore);
-			try {
-				responseSemaphore.acquire();
-				Object result = messageResponses.get(id);
-				messageResponses.remove(id);
-				return result;
-			} catch (InterruptedException e) {
-				ProvisioningPlugin.logError(e);
-				return null;
+	private <T> CompletableFuture<T> sendMessage(String method, Object params, Class<T> resultType,
+			long timeoutMillis, Consumer<Progress> progressListener) {
+		return sendMessage(method, params, resultType, timeoutMillis, progressListener, null);
+	}
+
+	/**
+	 * Sends a request from the writer thread. The returned future completes on
+	 * the reader thread when the response arrives; cancelling it or reaching the
+	 * timeout forgets the request so a late response is ignored, and tells the
+	 * server to stop working on it.
+	 */
+	private <T> CompletableFuture<T> sendMessage(String method, Object params, Class<T> resultType,
+			long timeoutMillis, Consumer<Progress> progressListener, Consumer<InstructionChunk> chunkListener) {
+		PendingRequest<T> pendingRequest = pendingRequests.add(method, resultType, progressListener, chunkListener);
+		RpcRequest request = pendingRequests.toRequest(pendingRequest, params);
+		CompletableFuture<T> future = pendingRequest.getFuture();
+		if (timeoutMillis > 0) {
+			ScheduledFuture<?> timeout = TIMEOUTS.schedule(() -> {
+				future.completeExceptionally(new TimeoutException(
+						method + " request " + request.id + " timed out after " + timeoutMillis + "ms"));
+			}, timeoutMillis, TimeUnit.MILLISECONDS);
+			future.whenComplete((result, error) -> timeout.cancel(false));
+		}
+		future.whenComplete((result, error) -> {
+			pendingRequests.remove(pendingRequest);
+			tracer.record(toRecord(pendingRequest));
+			if (error instanceof CancellationException || error instanceof TimeoutException) {
+				sendCancel(request.id);
 			}
 		});
-		return completableFuture;
+		if (directDispatcher != null) {
+			directDispatcher.dispatch(request, pendingRequest);
+			return future;
+		}
+		try {
+			writerExecutor.execute(() -> {
+				if (future.isDone()) {
+					return;
+				}
+				try {
+					long bytesWritten = transport.getBytesWritten();
+					transport.write(request);
+					pendingRequest.written(transport.getBytesWritten() - bytesWritten);
+				} catch (IOException e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(new IOException("Connection to " + serverName + " closed", e));
+		}
+		return future;
+	}
+
+	/**
+	 * Tells the server that the response to a request is no longer awaited.
+	 */
+	private void sendCancel(String id) {
+		if (!connected) {
+			return;
+		}
+		if (directDispatcher != null) {
+			directDispatcher.cancel(id);
+			return;
+		}
+		RpcRequest notification = new RpcRequest(null, baseMethod + ProvisioningServer.CANCEL_METHOD,
+				new CancelParams(id));
+		try {
+			writerExecutor.execute(() -> {
+				try {
+					transport.write(notification);
+				} catch (IOException e) {
+					// the connection is closing, nothing left to cancel
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the connection is closed
+		}
+	}
+
+	private ProtocolTracer.Record toRecord(PendingRequest<?> pendingRequest) {
+		long sent = pendingRequest.getSentNanos();
+		long written = pendingRequest.getWrittenNanos();
+		long received = pendingRequest.getReceivedNanos();
+		boolean failed = received < 0 || pendingRequest.getFuture().isCompletedExceptionally();
+		return new ProtocolTracer.Record(serverName, pendingRequest.getMethod(), pendingRequest.getId(),
+				pendingRequest.getBytesOut(), pendingRequest.getBytesIn(), written < 0 ? -1 : written - sent,
+				written < 0 || received < 0 ? -1 : received - written,
+				(received < 0 ? System.nanoTime() : received) - sent, failed);
 	}
 
 	private void listenForMessages() {
-		CompletableFuture.runAsync(() -> {
+		Thread readerThread = new Thread(() -> {
 			try {
-				reader = new BufferedReader(new InputStreamReader(streamConnectionProvider.getInputStream()));
 				while (true) {
-					String input = reader.readLine();
-					if (input == null) {
-						break;
-					}
-					RpcResponse response;
 					try {
-						response = gson.fromJson(input, RpcResponse.class);
-					} catch (JsonSyntaxException e) {
-						System.out.println("Unknown message format: " + input);
-						continue;
+						if (pendingRequests.readMessage(transport) == null) {
+							break;
+						}
+					} catch (MalformedMessageException e) {
+						System.out.println("Unknown message format: " + e.getMessage());
 					}
-					Integer id = Integer.parseInt(response.id);
-					messageResponses.put(id, response.result);
-					messageResponseSemaphores.get(id).release();
 				}
 			} catch (Exception e) {
 				System.out.println(e);
 			} finally {
-				if (reader != null) {
-					try {
-						reader.close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
+				connected = false;
+				try {
+					transport.close();
+				} catch (IOException e) {
+					e.printStackTrace();
 				}
+				failPendingRequests();
 			}
+		}, "ppp4e-reader-" + serverName);
+		readerThread.setDaemon(true);
+		readerThread.start();
+	}
+
+	private void failPendingRequests() {
+		pendingRequests.failAll(new IOException("Connection to " + serverName + " closed"));
+	}
+
+	private static ScheduledExecutorService createTimeoutScheduler() {
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "ppp4e-request-timeouts");
+			thread.setDaemon(true);
+			return thread;
 		});
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
 	}
 }
@@ -0,0 +1,217 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one running server per {@link StreamConnectionProvider} type and
+ * server name so that opening a wizard again reuses the warm server instead of
+ * starting and initializing a new one.
+ *
+ * Servers are leased to wizards and returned when the wizard is disposed. A
+ * server that is no longer leased is stopped after an idle timeout. Before a
+ * pooled server is leased again it must answer a ping within a short timeout,
+ * otherwise it is replaced like a server whose connection dropped.
+ */
+public class ServerPool {
+	private static final long IDLE_TIMEOUT_MINUTES = 5;
+	private static final long PING_TIMEOUT_MILLIS = 2000;
+	private static final ServerPool DEFAULT = new ServerPool(IDLE_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+
+	private final long idleTimeoutMillis;
+	private final Map<String, PooledServer> servers = new HashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	public ServerPool(long idleTimeout, TimeUnit unit) {
+		this.idleTimeoutMillis = unit.toMillis(idleTimeout);
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "ppp4e-server-pool");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		this.scheduler = executor;
+	}
+
+	public static ServerPool getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Leases the running server for the type of the given provider and the
+	 * name, starting one with that provider if there is none or if it is no
+	 * longer responsive. The lease must be returned with {@link #release(Server)}.
+	 *
+	 * The server is pinged and started without holding the lock of the pool, so
+	 * a slow server does not block the leases of other servers.
+	 *
+	 * @return the connected server, or <code>null</code> if it could not be
+	 *         started
+	 */
+	public Server lease(StreamConnectionProvider streamConnectionProvider, String serverName) {
+		String key = getServerId(streamConnectionProvider, serverName);
+		PooledServer pooledServer = leasePooled(key);
+		if (pooledServer != null) {
+			if (pooledServer.server.isResponsive(PING_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				return pooledServer.server;
+			}
+			discard(pooledServer);
+		}
+		Server server = new Server(streamConnectionProvider, serverName);
+		if (!server.openConnection()) {
+			return null;
+		}
+		synchronized (this) {
+			pooledServer = servers.get(key);
+			if (pooledServer == null || !pooledServer.server.isConnected()) {
+				if (pooledServer != null) {
+					pooledServer.close();
+				}
+				pooledServer = new PooledServer(key, server);
+				servers.put(key, pooledServer);
+				pooledServer.lease();
+				return server;
+			}
+			// another lease started a server meanwhile, share it
+			pooledServer.lease();
+		}
+		server.closeConnection();
+		return pooledServer.server;
+	}
+
+	/**
+	 * @return the pooled server for the key, leased, or <code>null</code> if
+	 *         there is none still connected
+	 */
+	private synchronized PooledServer leasePooled(String key) {
+		PooledServer pooledServer = servers.get(key);
+		if (pooledServer == null) {
+			return null;
+		}
+		if (!pooledServer.server.isConnected()) {
+			servers.remove(key);
+			pooledServer.close();
+			return null;
+		}
+		pooledServer.lease();
+		return pooledServer;
+	}
+
+	/**
+	 * Removes a server that did not answer its ping from the pool and stops it,
+	 * failing the requests of its other leases.
+	 */
+	private void discard(PooledServer pooledServer) {
+		synchronized (this) {
+			if (servers.get(pooledServer.key) == pooledServer) {
+				servers.remove(pooledServer.key);
+			}
+		}
+		pooledServer.close();
+	}
+
+	/**
+	 * @return the key identifying servers started by this type of provider
+	 *         under this name, stable across sessions
+	 */
+	public static String getServerId(StreamConnectionProvider streamConnectionProvider, String serverName) {
+		return streamConnectionProvider.getClass().getName() + ':' + serverName;
+	}
+
+	/**
+	 * Takes one more lease on a server that is already leased, for work that
+	 * can outlive the current lease. The lease must be returned with
+	 * {@link #release(Server)}.
+	 *
+	 * @return whether the server is still pooled and was leased
+	 */
+	public synchronized boolean lease(Server server) {
+		for (PooledServer pooledServer : servers.values()) {
+			if (pooledServer.server == server) {
+				pooledServer.lease();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a lease taken with {@link #lease(StreamConnectionProvider, String)}.
+	 */
+	public synchronized void release(Server server) {
+		for (PooledServer pooledServer : servers.values()) {
+			if (pooledServer.server == server) {
+				pooledServer.release();
+				return;
+			}
+		}
+		// the server was already replaced or shut down
+	}
+
+	/**
+	 * Stops all pooled servers, whether they are leased or not.
+	 */
+	public synchronized void shutdown() {
+		for (Iterator<PooledServer> iterator = servers.values().iterator(); iterator.hasNext();) {
+			iterator.next().close();
+			iterator.remove();
+		}
+	}
+
+	private synchronized void closeIfIdle(PooledServer pooledServer) {
+		if (pooledServer.leases == 0 && servers.get(pooledServer.key) == pooledServer) {
+			servers.remove(pooledServer.key);
+			pooledServer.close();
+		}
+	}
+
+	private class PooledServer {
+		final String key;
+		final Server server;
+		int leases;
+		ScheduledFuture<?> idleTimeout;
+
+		PooledServer(String key, Server server) {
+			this.key = key;
+			this.server = server;
+		}
+
+		void lease() {
+			leases++;
+			if (idleTimeout != null) {
+				idleTimeout.cancel(false);
+				idleTimeout = null;
+			}
+		}
+
+		void release() {
+			if (leases > 0 && --leases == 0) {
+				idleTimeout = scheduler.schedule(() -> closeIfIdle(this), idleTimeoutMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		void close() {
+			if (idleTimeout != null) {
+				idleTimeout.cancel(false);
+			}
+			server.closeConnection();
+		}
+	}
+}
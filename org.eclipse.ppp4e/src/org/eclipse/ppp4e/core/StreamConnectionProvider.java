@@ -15,6 +15,9 @@ package org.eclipse.ppp4e.core;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.eclipse.ppp4j.server.MessageTransport;
+import org.eclipse.ppp4j.server.NewlineDelimitedTransport;
+
 public interface StreamConnectionProvider {
 	public boolean start();
 
@@ -25,4 +28,12 @@ public interface StreamConnectionProvider {
 	public InputStream getErrorStream();
 
 	public void stop();
+
+	/**
+	 * Creates the transport framing messages on the streams of this connection.
+	 * It must match the transport chosen by the server.
+	 */
+	public default MessageTransport createTransport(InputStream inputStream, OutputStream outputStream) {
+		return new NewlineDelimitedTransport(inputStream, outputStream);
+	}
 }
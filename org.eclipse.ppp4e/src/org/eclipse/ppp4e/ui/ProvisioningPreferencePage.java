@@ -12,12 +12,30 @@
  *******************************************************************************/
 package org.eclipse.ppp4e.ui;
 
+import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.PreferencePage;
+import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4e.core.ProtocolTracer;
+import org.eclipse.ppp4e.core.ProtocolTracer.MethodStatistics;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
@@ -30,9 +48,61 @@ public class ProvisioningPreferencePage extends PreferencePage implements IWorkb
 
 		Label cargoLabel = new Label(container, SWT.NONE);
 		cargoLabel.setText("Project provisining servers may require preferences. They are found in the nested pages.");
+
+		createTraceControl(container);
 		return container;
 	}
 
+	private void createTraceControl(Composite container) {
+		Group traceGroup = new Group(container, SWT.NONE);
+		traceGroup.setText("Protocol trace");
+		traceGroup.setLayout(new GridLayout(2, false));
+		traceGroup.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+
+		Text statisticsText = new Text(traceGroup, SWT.MULTI | SWT.READ_ONLY | SWT.BORDER | SWT.V_SCROLL | SWT.H_SCROLL);
+		GridData statisticsData = new GridData(SWT.FILL, SWT.FILL, true, true, 2, 1);
+		statisticsData.heightHint = 120;
+		statisticsData.widthHint = 400;
+		statisticsText.setLayoutData(statisticsData);
+		statisticsText.setText(getStatistics());
+
+		Button exportButton = new Button(traceGroup, SWT.PUSH);
+		exportButton.setText("Export...");
+		exportButton.addSelectionListener(widgetSelectedAdapter(e -> exportTrace()));
+
+		Button resetButton = new Button(traceGroup, SWT.PUSH);
+		resetButton.setText("Reset");
+		resetButton.addSelectionListener(widgetSelectedAdapter(e -> {
+			ProtocolTracer.getDefault().reset();
+			statisticsText.setText(getStatistics());
+		}));
+	}
+
+	private String getStatistics() {
+		StringBuilder text = new StringBuilder();
+		for (MethodStatistics statistics : ProtocolTracer.getDefault().getStatistics()) {
+			text.append(statistics).append('\n');
+		}
+		return text.length() == 0 ? "No requests traced yet." : text.toString();
+	}
+
+	private void exportTrace() {
+		FileDialog dialog = new FileDialog(getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.json" }); //$NON-NLS-1$
+		dialog.setFileName("ppp-trace.json"); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null) {
+			return;
+		}
+		try (Writer writer = new OutputStreamWriter(Files.newOutputStream(Paths.get(path)), StandardCharsets.UTF_8)) {
+			ProtocolTracer.getDefault().writeTo(writer);
+		} catch (IOException e) {
+			ProvisioningPlugin.logError(e);
+			MessageDialog.openError(getShell(), "Export failed", e.getMessage());
+		}
+	}
+
 	@Override
 	public void init(IWorkbench workbench) {
 		// Nothing to init
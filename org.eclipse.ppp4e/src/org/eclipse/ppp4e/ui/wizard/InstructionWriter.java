@@ -0,0 +1,314 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.ui.wizard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4e.core.InstructionStaging;
+import org.eclipse.ppp4j.messages.Instruction;
+
+/**
+ * Creates a project from the files a server sent as instructions.
+ *
+ * The files are written to disk in parallel, then each one is refreshed on its
+ * own. Everything happens in one workspace operation, so the workspace sends a
+ * single resource change event for the whole project and never has to walk the
+ * project tree.
+ *
+ * Existing files are never replaced: the location is checked for conflicts
+ * before anything is created and files are only created new. When writing
+ * fails, the files and folders written so far are deleted and the project is
+ * removed from the workspace.
+ */
+final class InstructionWriter {
+	private static final ExecutorService WRITERS = createWriters();
+
+	private InstructionWriter() {
+	}
+
+	/**
+	 * @param location the directory of the project, created if missing
+	 * @param staging  where the content of chunked instructions was received,
+	 *                 <code>null</code> if it is read from their source
+	 */
+	static IProject createProject(String name, File location, Instruction[] instructions,
+			InstructionStaging staging, IProgressMonitor monitor) throws CoreException {
+		Instruction[] files = instructions == null ? new Instruction[0] : instructions;
+		List<IPath> paths = new ArrayList<>(files.length);
+		for (Instruction instruction : files) {
+			paths.add(toProjectPath(instruction));
+		}
+		checkConflicts(location, paths);
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		IProject project = workspace.getRoot().getProject(name);
+		workspace.run(operationMonitor -> {
+			SubMonitor subMonitor = SubMonitor.convert(operationMonitor, 4);
+			File createdParent = null;
+			for (File ancestor = location.getAbsoluteFile(); ancestor != null
+					&& !ancestor.exists(); ancestor = ancestor.getParentFile()) {
+				createdParent = ancestor;
+			}
+			if (!location.isDirectory() && !location.mkdirs()) {
+				throw new CoreException(new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID,
+						"Unable to create " + location));
+			}
+			boolean projectCreated = false;
+			List<java.nio.file.Path> createdFolders = new ArrayList<>();
+			Set<java.nio.file.Path> writtenFiles = ConcurrentHashMap.newKeySet();
+			try {
+				IProjectDescription description = workspace.newProjectDescription(name);
+				description.setLocation(Path.fromOSString(location.getAbsolutePath()));
+				java.nio.file.Path descriptionFile = location.toPath().resolve(IProjectDescription.DESCRIPTION_FILE_NAME);
+				boolean descriptionExisted = Files.exists(descriptionFile);
+				project.create(description, subMonitor.split(1));
+				projectCreated = true;
+				if (!descriptionExisted) {
+					// the project is deleted without its content, which includes this file
+					writtenFiles.add(descriptionFile);
+				}
+				// opened while still empty so that opening has nothing to discover
+				project.open(subMonitor.split(1));
+				createFolders(project, paths, createdFolders, subMonitor.split(1));
+				writeFiles(project, files, paths, staging, writtenFiles);
+				refreshFiles(project, paths, subMonitor.split(1));
+			} catch (CoreException | RuntimeException e) {
+				rollBack(projectCreated ? project : null, writtenFiles, createdFolders, location, createdParent, e);
+				throw e;
+			}
+		}, workspace.getRoot(), IWorkspace.AVOID_UPDATE, monitor);
+		return project;
+	}
+
+	/**
+	 * Fails before anything is created when a file would replace one that is
+	 * already at the location, or when a folder is needed where a file is.
+	 */
+	private static void checkConflicts(File location, List<IPath> paths) throws CoreException {
+		Set<IPath> files = new HashSet<>();
+		Set<String> conflicts = new TreeSet<>();
+		for (IPath path : paths) {
+			if (!files.add(path) || new File(location, path.toOSString()).exists()) {
+				conflicts.add(path.toPortableString());
+			}
+			for (int i = 1; i < path.segmentCount(); i++) {
+				File folder = new File(location, path.uptoSegment(i).toOSString());
+				if (folder.exists() && !folder.isDirectory()) {
+					conflicts.add(path.uptoSegment(i).toPortableString());
+				}
+			}
+		}
+		if (!conflicts.isEmpty()) {
+			throw new CoreException(new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID,
+					"Files already exist in " + location + ": " + String.join(", ", conflicts)));
+		}
+	}
+
+	/**
+	 * Removes the project from the workspace, leaving its location to be cleaned
+	 * here, then deletes what was written and created on disk. Failures are
+	 * added to the original failure.
+	 */
+	private static void rollBack(IProject project, Set<java.nio.file.Path> writtenFiles,
+			List<java.nio.file.Path> createdFolders, File location, File createdParent, Exception failure) {
+		if (project != null) {
+			try {
+				project.delete(IResource.NEVER_DELETE_PROJECT_CONTENT | IResource.FORCE, null);
+			} catch (CoreException e) {
+				failure.addSuppressed(e);
+			}
+		}
+		for (java.nio.file.Path file : writtenFiles) {
+			deleteQuietly(file, failure);
+		}
+		for (int i = createdFolders.size() - 1; i >= 0; i--) {
+			deleteQuietly(createdFolders.get(i), failure);
+		}
+		if (createdParent != null) {
+			for (File directory = location.getAbsoluteFile(); directory != null; directory = directory
+					.getParentFile()) {
+				deleteQuietly(directory.toPath(), failure);
+				if (directory.equals(createdParent)) {
+					break;
+				}
+			}
+		}
+	}
+
+	private static void deleteQuietly(java.nio.file.Path path, Exception failure) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+
+	private static IPath toProjectPath(Instruction instruction) throws CoreException {
+		IPath path = instruction.path == null ? null : Path.fromPortableString(instruction.path);
+		if (path == null || path.isEmpty() || path.isAbsolute() || path.getDevice() != null
+				|| path.segmentCount() == 0 || "..".equals(path.segment(0))) {
+			throw new CoreException(new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID,
+					"Invalid file path from the server: " + instruction.path));
+		}
+		return path;
+	}
+
+	/**
+	 * @param createdFolders receives the folders created on disk, parents first
+	 */
+	private static void createFolders(IProject project, List<IPath> paths, List<java.nio.file.Path> createdFolders,
+			IProgressMonitor monitor) throws CoreException {
+		// sorted so that a folder comes before the folders it contains
+		TreeSet<String> folders = new TreeSet<>();
+		for (IPath path : paths) {
+			for (int i = 1; i < path.segmentCount(); i++) {
+				folders.add(path.uptoSegment(i).toPortableString());
+			}
+		}
+		SubMonitor subMonitor = SubMonitor.convert(monitor, folders.size());
+		for (String folderPath : folders) {
+			IFolder folder = project.getFolder(folderPath);
+			if (!folder.exists()) {
+				java.nio.file.Path folderLocation = folder.getLocation().toFile().toPath();
+				boolean onDisk = Files.exists(folderLocation);
+				folder.create(IResource.FORCE, true, subMonitor.split(1));
+				if (!onDisk) {
+					createdFolders.add(folderLocation);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param writtenFiles receives the files created, also when writing their
+	 *                     content failed
+	 */
+	private static void writeFiles(IProject project, Instruction[] files, List<IPath> paths,
+			InstructionStaging staging, Set<java.nio.file.Path> writtenFiles) throws CoreException {
+		CompletableFuture<?>[] writes = new CompletableFuture<?>[files.length];
+		for (int i = 0; i < files.length; i++) {
+			java.nio.file.Path target = project.getFile(paths.get(i)).getLocation().toFile().toPath();
+			Instruction instruction = files[i];
+			writes[i] = CompletableFuture.runAsync(() -> {
+				try {
+					writeFile(instruction, target, staging);
+					writtenFiles.add(target);
+				} catch (FileAlreadyExistsException e) {
+					// created by someone else since the conflicts were checked, not ours to delete
+					throw new UncheckedIOException(e);
+				} catch (IOException e) {
+					writtenFiles.add(target);
+					throw new UncheckedIOException(e);
+				}
+			}, WRITERS);
+		}
+		try {
+			CompletableFuture.allOf(writes).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+			String message = cause instanceof FileAlreadyExistsException
+					? "File already exists: " + ((FileAlreadyExistsException) cause).getFile()
+					: "Unable to write the project files";
+			throw new CoreException(new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID, message, cause));
+		}
+	}
+
+	/**
+	 * Creates the file, failing with a {@link FileAlreadyExistsException} rather
+	 * than replacing one that is already there.
+	 */
+	private static void writeFile(Instruction instruction, java.nio.file.Path target, InstructionStaging staging)
+			throws IOException {
+		if (!instruction.chunked) {
+			byte[] content = decode(instruction);
+			Files.write(target, content, StandardOpenOption.CREATE_NEW);
+		} else if (instruction.source != null) {
+			// the server was called directly and sent no chunk
+			try (InputStream content = instruction.source.open()) {
+				Files.copy(content, target);
+			}
+		} else if (staging != null) {
+			Files.move(staging.verify(instruction), target);
+		} else {
+			throw new IOException("No content received for " + instruction.path);
+		}
+	}
+
+	private static byte[] decode(Instruction instruction) throws IOException {
+		if (instruction.content == null) {
+			return new byte[0];
+		}
+		if (Instruction.BASE64.equals(instruction.encoding)) {
+			try {
+				return Base64.getMimeDecoder().decode(instruction.content);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Invalid content received for " + instruction.path, e);
+			}
+		}
+		if (instruction.encoding != null) {
+			throw new IOException("Unsupported encoding " + instruction.encoding + " for " + instruction.path);
+		}
+		return instruction.content.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void refreshFiles(IProject project, List<IPath> paths, IProgressMonitor monitor)
+			throws CoreException {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, paths.size());
+		for (IPath path : paths) {
+			IFile file = project.getFile(path);
+			file.refreshLocal(IResource.DEPTH_ZERO, subMonitor.split(1));
+		}
+	}
+
+	private static ExecutorService createWriters() {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+			Thread thread = new Thread(runnable, "ppp4e-instruction-writer-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
@@ -14,37 +14,22 @@ package org.eclipse.ppp4e.ui.wizard;
 
 import java.io.File;
 import java.util.Iterator;
-import java.util.concurrent.ExecutionException;
 
-import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IWorkspaceRoot;
-import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.NullProgressMonitor;
-import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.viewers.IStructuredSelection;
-import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.wizard.Wizard;
 import org.eclipse.ppp4e.ProvisioningPlugin;
 import org.eclipse.ppp4e.core.Server;
+import org.eclipse.ppp4e.core.ServerPool;
 import org.eclipse.ppp4e.core.StreamConnectionProvider;
-import org.eclipse.ppp4j.messages.ProvisionResult;
-import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.client.InitializeResultCache;
+import org.eclipse.ppp4j.messages.InitializeResult;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.INewWizard;
-import org.eclipse.ui.IPageLayout;
-import org.eclipse.ui.IViewPart;
 import org.eclipse.ui.IWorkbench;
-import org.eclipse.ui.IWorkbenchPage;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.ide.IDE;
-import org.eclipse.ui.part.ISetSelectionTarget;
 
 public abstract class NewProjectWizard extends Wizard implements INewWizard {
 	private NewProjectWizardPage inputPage;
@@ -61,25 +46,49 @@ public abstract class NewProjectWizard extends Wizard implements INewWizard {
 		inputPage = new NewProjectWizardPage(getWizardName());
 		addPage(inputPage);
 		previewPage = null;
-		server = new Server(getStreamConnectionProvider(), getWizardName());
-		if (server.openConnection()) {
-			server.Initalize().thenAccept(initializeResult -> {
-				inputPage.init(initializeResult, server);
-				if (initializeResult.previewSupported) {
-					previewPage = new NewProjectPreviewWizardPage();
-					previewPage.setServer(server);
-					Display.getDefault().asyncExec(() -> {
-						addPage(previewPage);
-						inputPage.updatedButtons();
-					});
+		server = ServerPool.getDefault().lease(getStreamConnectionProvider(), getWizardName());
+		if (server != null) {
+			String serverId = ServerPool.getServerId(getStreamConnectionProvider(), getWizardName());
+			InitializeResultCache resultCache = new InitializeResultCache(
+					ProvisioningPlugin.getDefault().getStateLocation().append("initialize").toFile(),
+					ProvisioningPlugin::logWarning);
+			InitializeResult cachedResult = resultCache.load(serverId);
+			if (cachedResult != null) {
+				inputPage.init(cachedResult, server);
+				addPreviewPage(cachedResult);
+			}
+			server.Initalize(cachedResult).whenComplete((initializeResult, error) -> {
+				if (error != null) {
+					ProvisioningPlugin.logError(error);
+					if (cachedResult == null) {
+						inputPage.init(null, null);
+					}
+					return;
+				}
+				InitializeResult changedResult = resultCache.update(serverId, cachedResult, initializeResult);
+				if (changedResult != null) {
+					inputPage.init(changedResult, server);
+					addPreviewPage(changedResult);
 				}
 			});
 		} else {
-			server = null;
 			inputPage.init(null, null);
 		}
 	}
 
+	private synchronized void addPreviewPage(InitializeResult initializeResult) {
+		if (!initializeResult.previewSupported || previewPage != null) {
+			return;
+		}
+		previewPage = new NewProjectPreviewWizardPage();
+		previewPage.setServer(server);
+		NewProjectPreviewWizardPage page = previewPage;
+		Display.getDefault().asyncExec(() -> {
+			addPage(page);
+			inputPage.updatedButtons();
+		});
+	}
+
 	@Override
 	public void init(IWorkbench workbench, IStructuredSelection selection) {
 		Iterator<?> selectionIterator = selection.iterator();
@@ -97,65 +106,41 @@ public abstract class NewProjectWizard extends Wizard implements INewWizard {
 		}
 	}
 
+	/**
+	 * Provisions the project in a {@link ProvisionJob} so that the workbench
+	 * stays responsive while the server works. The page is only complete once
+	 * the parameters were validated. The wizard closes as soon as the job is
+	 * scheduled, so errors reported by the provisioning itself no longer keep it
+	 * open, they are shown by the job. Only a job that could not be started
+	 * keeps the wizard open.
+	 */
 	@Override
 	public boolean performFinish() {
-		try {
-			ProvisioningParameters parameters = inputPage.getParameters();
-			ProvisionResult result = server.Provision(parameters).get();// TODO: set up as a job to work in background
-			if (result.erroneousParameters.length > 0
-					|| (result.errorMessage != null && !result.errorMessage.isEmpty())) {
-				if (getContainer().getCurrentPage() != inputPage) {
-					getContainer().showPage(inputPage);
-				}
-				inputPage.showError(result.errorMessage, result.erroneousParameters);
-				return false;
-			}
-			createProject(parameters.name, result.location, result.openFiles);
-			return true;
-		} catch (InterruptedException | ExecutionException e) {
-			ProvisioningPlugin.logError(e);
+		if (server == null || !ServerPool.getDefault().lease(server)) {
+			MessageDialog.openError(getShell(), "Unable to create project",
+					"The provisioning server is no longer running.");
 			return false;
 		}
-	}
-
-	private void createProject(String name, String directory, String[] openFiles) { // TODO: link into a job/monitor
-		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-		IProject project = root.getProject(name);
-		IProjectDescription description = root.getWorkspace().newProjectDescription(project.getName());
-		description.setLocation(Path.fromOSString(directory));
+		// the result the page was built from, asking the server again would
+		// send a new initialize request if revalidating the cached one failed
+		InitializeResult initializeResult = inputPage.getInitializeResult();
 		try {
-			project.create(description, new NullProgressMonitor());
-			project.open(new NullProgressMonitor());
-			project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
-		} catch (CoreException e) {
+			new ProvisionJob(server, inputPage.getParameters(),
+					initializeResult != null && initializeResult.provisionInstructionsSupported).schedule();
+		} catch (RuntimeException e) {
+			// the job releases the lease once it ran
+			ServerPool.getDefault().release(server);
+			ProvisioningPlugin.logError(e);
 			MessageDialog.openError(getShell(), "Unable to create project", e.toString());
+			return false;
 		}
-
-		Display.getDefault().asyncExec(() -> {
-			IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
-			if (page != null) {
-				try {
-					IViewPart view = page.findView(IPageLayout.ID_PROJECT_EXPLORER);
-					for (String filePath : openFiles) {
-						IFile rsPrgramFile = project.getFile(filePath);
-						if (rsPrgramFile.exists()) {
-							IDE.openEditor(page, rsPrgramFile);
-							if (view != null) {
-								((ISetSelectionTarget) view).selectReveal(new StructuredSelection(rsPrgramFile));
-							}
-						}
-					}
-				} catch (CoreException e) {
-					MessageDialog.openError(getShell(), "Unable to open project", e.toString());
-				}
-			}
-		});
+		return true;
 	}
 
 	@Override
 	public void dispose() {
 		if (server != null) {
-			server.closeConnection();
+			ServerPool.getDefault().release(server);
 		}
 		super.dispose();
 	}
@@ -15,8 +15,8 @@ package org.eclipse.ppp4e.ui.wizard;
 import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Semaphore;
 
 import org.eclipse.jface.fieldassist.ControlDecoration;
 import org.eclipse.jface.fieldassist.FieldDecorationRegistry;
@@ -26,7 +26,7 @@ import org.eclipse.jface.viewers.ListViewer;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.ViewerComparator;
 import org.eclipse.jface.wizard.WizardPage;
-import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4e.core.RequestCoalescer;
 import org.eclipse.ppp4e.core.Server;
 import org.eclipse.ppp4j.messages.ComponentVersion;
 import org.eclipse.ppp4j.messages.ComponentVersionSelection;
@@ -35,7 +35,7 @@ import org.eclipse.ppp4j.messages.InitializeResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
 import org.eclipse.ppp4j.messages.Template;
 import org.eclipse.ppp4j.messages.TemplateSelection;
-import org.eclipse.ppp4j.messages.Version;
+import org.eclipse.ppp4j.messages.ValidationResult;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
@@ -52,10 +52,13 @@ import org.eclipse.swt.widgets.List;
 import org.eclipse.swt.widgets.Text;
 
 public class NewProjectWizardPage extends WizardPage {
+	private static final long VALIDATION_DELAY_MILLIS = 300;
+
 	private File directory;
-	private InitializeResult initializeResult;
+	private volatile InitializeResult initializeResult;
 	private Server server;
-	private Semaphore initSemaphore = new Semaphore(0);
+	private RequestCoalescer<ProvisioningParameters, ValidationResult> validationCoalescer;
+	private CompletableFuture<Void> initialized = new CompletableFuture<>();
 
 	private Label loadingLabel;
 	private String loadingLabelText = "Loading wizard from Project Provisioning Server...";
@@ -86,6 +89,14 @@ public class NewProjectWizardPage extends WizardPage {
 		return parameters;
 	}
 
+	/**
+	 * @return the result the parameter controls were built from, or
+	 *         <code>null</code> until the server answered
+	 */
+	public InitializeResult getInitializeResult() {
+		return initializeResult;
+	}
+
 	public void updatedButtons() {
 		Display.getDefault().asyncExec(() -> {
 			getContainer().updateButtons();
@@ -94,24 +105,18 @@ public class NewProjectWizardPage extends WizardPage {
 
 	@Override
 	public void createControl(Composite parent) {
-		CompletableFuture.runAsync(() -> {
-			try {
-				initSemaphore.acquire();
-				Display.getDefault().asyncExec(() -> {
-					if (initializeResult != null) {
-						removeLoadingControl();
-						createParameterControl(parent);
-					} else {
-						loadingLabelText = "Failed to start the provisioning server.";
-						if (loadingLabel != null) {
-							loadingLabel.setText(loadingLabelText);
-						}
+		initialized.thenRun(() -> {
+			Display.getDefault().asyncExec(() -> {
+				if (initializeResult != null) {
+					removeLoadingControl();
+					createParameterControl(parent);
+				} else {
+					loadingLabelText = "Failed to start the provisioning server.";
+					if (loadingLabel != null) {
+						loadingLabel.setText(loadingLabelText);
 					}
-				});
-			} catch (InterruptedException e) {
-				ProvisioningPlugin.logError(e);
-				getWizard().performCancel();
-			}
+				}
+			});
 		});
 		addLoadingControl(parent);
 	}
@@ -278,15 +283,21 @@ public class NewProjectWizardPage extends WizardPage {
 		}
 		parameters.templateSelection = new TemplateSelection();
 		parameters.templateSelection.id = template.id;
-		parameters.templateSelection.componentVersions = new ComponentVersionSelection[template.componentVersions.length];
-		for (int i = 0; i < template.componentVersions.length; i++) {
-			ComponentVersion componentVersion = template.componentVersions[i];
-			if (componentVersion.versions.length == 0) {
+		parameters.templateSelection.componentVersions = defaultSelections(template.componentVersions);
+	}
+
+	private static ComponentVersionSelection[] defaultSelections(ComponentVersion[] componentVersions) {
+		if (componentVersions == null) {
+			return new ComponentVersionSelection[0];
+		}
+		java.util.List<ComponentVersionSelection> selections = new ArrayList<>(componentVersions.length);
+		for (ComponentVersion componentVersion : componentVersions) {
+			if (componentVersion == null || componentVersion.versions == null || componentVersion.versions.length == 0) {
 				continue;
 			}
-			parameters.templateSelection.componentVersions[i] = new ComponentVersionSelection(componentVersion.id,
-					componentVersion.versions[0].id);
+			selections.add(new ComponentVersionSelection(componentVersion.id, componentVersion.versions[0].id));
 		}
+		return selections.toArray(new ComponentVersionSelection[selections.size()]);
 	}
 
 	private void createComponentVersionsControl(Composite container, ComponentVersion[] componentVersions,
@@ -310,13 +321,13 @@ public class NewProjectWizardPage extends WizardPage {
 			combo.setItems(verisonLabels);
 			combo.select(0);
 			combo.addSelectionListener(widgetSelectedAdapter(e -> {
+				int index = combo.getSelectionIndex();
+				if (index < 0) {
+					return;
+				}
 				for (ComponentVersionSelection selection : selections) {
-					if (selection.id.equals(componentVersion.id)) {
-						for (Version version : componentVersion.versions) {
-							if (version.title.equals(combo.getText())) {
-								selection.versionId = version.id;
-							}
-						}
+					if (selection != null && componentVersion.id.equals(selection.id)) {
+						selection.versionId = componentVersion.versions[index].id;
 					}
 				}
 				validate();
@@ -334,26 +345,52 @@ public class NewProjectWizardPage extends WizardPage {
 	public void init(InitializeResult initializeResult, Server server) {
 		this.initializeResult = initializeResult;
 		this.server = server;
+		if (validationCoalescer != null) {
+			validationCoalescer.cancel();
+		}
+		if (server != null) {
+			validationCoalescer = new RequestCoalescer<>(server::Validation, VALIDATION_DELAY_MILLIS);
+		}
 		if (initializeResult != null) {
 			parameters = new ProvisioningParameters();
 			parameters.templateSelection = new TemplateSelection();
-			parameters.componentVersionSelections = new ComponentVersionSelection[initializeResult.componentVersions.length];
-			for (int i = 0; i < initializeResult.componentVersions.length; i++) {
-				ComponentVersion componentVersion = initializeResult.componentVersions[i];
-				if (componentVersion.versions.length == 0) {
-					continue;
-				}
-				parameters.componentVersionSelections[i] = new ComponentVersionSelection(componentVersion.id,
-						componentVersion.versions[0].id);
-			}
+			parameters.componentVersionSelections = defaultSelections(initializeResult.componentVersions);
+		}
+		if (!initialized.complete(null) && initializeResult != null) {
+			Display.getDefault().asyncExec(this::rebuildParameterControl);
+		}
+	}
+
+	/**
+	 * Recreates the parameter controls after a newer InitializeResult replaced
+	 * the one they were built from, keeping the name and location typed so far.
+	 */
+	private void rebuildParameterControl() {
+		Composite container = (Composite) getControl();
+		if (container == null || container.isDisposed() || nameInput == null) {
+			// parameter controls not created yet, createControl will use the latest result
+			return;
+		}
+		String name = nameInput.isDisposed() ? null : nameInput.getText();
+		String location = locationInput.isDisposed() ? null : locationInput.getText();
+		for (Control child : container.getChildren()) {
+			child.dispose();
+		}
+		versionInput = null;
+		versionDecoration = null;
+		createParameterControl(container.getParent());
+		if (name != null) {
+			nameInput.setText(name);
+		}
+		if (location != null) {
+			locationInput.setText(location);
 		}
-		initSemaphore.release();
 	}
 
 	private void validate() {
 		if (server != null) {
 			if (initializeResult.validationSupported) {
-				server.Validation(getParameters()).thenAccept(result -> {
+				validationCoalescer.request(new ProvisioningParameters(getParameters()), result -> {
 					boolean isPageComplete = !showError(result.errorMessage, result.erroneousParameters);
 					Display.getDefault().asyncExec(() -> {
 						setPageComplete(isPageComplete);
@@ -367,6 +404,14 @@ public class NewProjectWizardPage extends WizardPage {
 		}
 	}
 
+	@Override
+	public void dispose() {
+		if (validationCoalescer != null) {
+			validationCoalescer.cancel();
+		}
+		super.dispose();
+	}
+
 	public boolean showError(String errorMessage, ErroneousParameter[] erroneousParameters) {
 		Display.getDefault().asyncExec(() -> {
 			setErrorMessage(errorMessage);
@@ -0,0 +1,248 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4e.ui.wizard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.ppp4e.ProvisioningPlugin;
+import org.eclipse.ppp4e.core.InstructionStaging;
+import org.eclipse.ppp4e.core.Server;
+import org.eclipse.ppp4e.core.ServerPool;
+import org.eclipse.ppp4j.messages.ErroneousParameter;
+import org.eclipse.ppp4j.messages.Progress;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.ProvisionResult;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IPageLayout;
+import org.eclipse.ui.IViewPart;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.ide.IDE;
+import org.eclipse.ui.part.ISetSelectionTarget;
+
+/**
+ * Provisions a project in the background and imports it into the workspace.
+ * The progress reported by the server is shown on the job's monitor, and
+ * cancelling the job cancels the provisioning on the server.
+ */
+class ProvisionJob extends Job {
+	private static final long POLL_MILLIS = 100;
+	private static final int PROVISION_WORK = 80;
+	private static final int IMPORT_WORK = 20;
+
+	private final Server server;
+	private final ProvisioningParameters parameters;
+	private final boolean useInstructions;
+
+	/**
+	 * @param server          a server leased for the job, the lease is returned
+	 *                        when the job is done
+	 * @param useInstructions whether to ask the server for the files of the
+	 *                        project and write them here, see
+	 *                        {@link InstructionWriter}
+	 */
+	ProvisionJob(Server server, ProvisioningParameters parameters, boolean useInstructions) {
+		super("Creating project " + parameters.name);
+		this.server = server;
+		this.parameters = parameters;
+		this.useInstructions = useInstructions;
+		setUser(true);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		try {
+			SubMonitor subMonitor = SubMonitor.convert(monitor, getName(), PROVISION_WORK + IMPORT_WORK);
+			if (useInstructions) {
+				return provisionFromInstructions(subMonitor);
+			}
+			AtomicReference<Progress> latestProgress = new AtomicReference<>();
+			ProvisionResult result = waitFor(server.Provision(parameters, latestProgress::set), latestProgress,
+					subMonitor.split(PROVISION_WORK));
+			if (result == null) {
+				return Status.CANCEL_STATUS;
+			}
+			IStatus error = toErrorStatus(result.errorMessage, result.erroneousParameters);
+			if (error != null) {
+				return error;
+			}
+			return importProject(result, subMonitor.split(IMPORT_WORK));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		} catch (ExecutionException e) {
+			return new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID, "Unable to provision the project",
+					e.getCause());
+		} finally {
+			ServerPool.getDefault().release(server);
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Chunked contents are staged next to the project location, so that moving
+	 * them into the project does not copy them.
+	 */
+	private IStatus provisionFromInstructions(SubMonitor monitor) throws InterruptedException, ExecutionException {
+		File location = new File(parameters.location);
+		try (InstructionStaging staging = new InstructionStaging(createStagingDirectory(location))) {
+			monitor.subTask("Requesting the project files");
+			ProvisionInstructionsResult result = waitFor(server.ProvisionInstructions(parameters, staging),
+					new AtomicReference<>(), monitor.split(PROVISION_WORK));
+			if (result == null) {
+				return Status.CANCEL_STATUS;
+			}
+			IStatus error = toErrorStatus(result.errorMessage, result.erroneousParameters);
+			if (error != null) {
+				return error;
+			}
+			IProject project;
+			try {
+				project = InstructionWriter.createProject(parameters.name, location, result.newFiles, staging,
+						monitor.split(IMPORT_WORK));
+			} catch (CoreException e) {
+				return new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID, "Unable to create project", e);
+			} finally {
+				server.clearResultCache();
+			}
+			openFiles(project, result.openFiles);
+			return Status.OK_STATUS;
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID, "Unable to stage the project files", e);
+		}
+	}
+
+	private static java.nio.file.Path createStagingDirectory(File location) throws IOException {
+		File parent = location.getAbsoluteFile().getParentFile();
+		if (parent != null && parent.isDirectory()) {
+			return Files.createTempDirectory(parent.toPath(), ".ppp4e-");
+		}
+		return Files.createTempDirectory("ppp4e-");
+	}
+
+	/**
+	 * Waits for the server on this thread, since the monitor is not meant to be
+	 * used from the thread the server's progress arrives on.
+	 *
+	 * @return the result, or <code>null</code> if the job was cancelled
+	 */
+	private static <T> T waitFor(CompletableFuture<T> future, AtomicReference<Progress> latestProgress,
+			SubMonitor monitor) throws InterruptedException, ExecutionException {
+		int reportedWork = 0;
+		while (true) {
+			if (monitor.isCanceled()) {
+				future.cancel(true);
+				return null;
+			}
+			try {
+				return future.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				Progress progress = latestProgress.getAndSet(null);
+				if (progress != null) {
+					if (progress.message != null && !progress.message.isEmpty()) {
+						monitor.subTask(progress.message);
+					}
+					if (progress.total > 0) {
+						int work = Math.min(PROVISION_WORK, progress.worked * PROVISION_WORK / progress.total);
+						if (work > reportedWork) {
+							monitor.worked(work - reportedWork);
+							reportedWork = work;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static IStatus toErrorStatus(String errorMessage, ErroneousParameter[] erroneousParameters) {
+		boolean hasErrorMessage = errorMessage != null && !errorMessage.isEmpty();
+		if (!hasErrorMessage && (erroneousParameters == null || erroneousParameters.length == 0)) {
+			return null;
+		}
+		StringBuilder message = new StringBuilder(hasErrorMessage ? errorMessage : "Unable to provision the project");
+		if (erroneousParameters != null) {
+			for (ErroneousParameter erroneousParameter : erroneousParameters) {
+				message.append('\n').append(erroneousParameter.parameterType).append(": ")
+						.append(erroneousParameter.message);
+			}
+		}
+		return new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID, message.toString());
+	}
+
+	private IStatus importProject(ProvisionResult result, SubMonitor monitor) {
+		monitor.setWorkRemaining(3);
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		IProject project = root.getProject(parameters.name);
+		IProjectDescription description = root.getWorkspace().newProjectDescription(project.getName());
+		description.setLocation(Path.fromOSString(result.location));
+		try {
+			project.create(description, monitor.split(1));
+			project.open(monitor.split(1));
+			project.refreshLocal(IResource.DEPTH_INFINITE, monitor.split(1));
+		} catch (CoreException e) {
+			return new Status(IStatus.ERROR, ProvisioningPlugin.PLUGIN_ID, "Unable to create project", e);
+		}
+		openFiles(project, result.openFiles);
+		return Status.OK_STATUS;
+	}
+
+	private static void openFiles(IProject project, String[] openFiles) {
+		if (openFiles == null || openFiles.length == 0) {
+			return;
+		}
+		Display.getDefault().asyncExec(() -> {
+			IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+			IWorkbenchPage page = window == null ? null : window.getActivePage();
+			if (page == null) {
+				return;
+			}
+			try {
+				IViewPart view = page.findView(IPageLayout.ID_PROJECT_EXPLORER);
+				for (String filePath : openFiles) {
+					IFile file = project.getFile(filePath);
+					if (file.exists()) {
+						IDE.openEditor(page, file);
+						if (view != null) {
+							((ISetSelectionTarget) view).selectReveal(new StructuredSelection(file));
+						}
+					}
+				}
+			} catch (CoreException e) {
+				ProvisioningPlugin.logError("Unable to open project files", e);
+			}
+		});
+	}
+}
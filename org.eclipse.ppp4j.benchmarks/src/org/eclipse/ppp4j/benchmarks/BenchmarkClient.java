@@ -0,0 +1,65 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.ppp4j.client.PendingRequest;
+import org.eclipse.ppp4j.client.PendingRequestTable;
+import org.eclipse.ppp4j.server.MessageTransport;
+
+/**
+ * Client matching responses to their requests with the
+ * {@link PendingRequestTable} the Eclipse client uses, without its writer
+ * thread, timeouts and tracing.
+ */
+class BenchmarkClient implements Closeable {
+	private final MessageTransport transport;
+	private final PendingRequestTable pendingRequests = new PendingRequestTable("benchmark", //$NON-NLS-1$
+			RuntimeException::printStackTrace);
+
+	BenchmarkClient(MessageTransport transport) {
+		this.transport = transport;
+		Thread reader = new Thread(() -> {
+			try {
+				while (pendingRequests.readMessage(transport) != null) {
+					// responses complete their pending request
+				}
+			} catch (IOException e) {
+				// closed by the benchmark
+			} finally {
+				pendingRequests.failAll(new IOException("Connection closed")); //$NON-NLS-1$
+			}
+		}, "benchmark-client-reader"); //$NON-NLS-1$
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	<T> CompletableFuture<T> send(String method, Object params, Class<T> resultType) {
+		PendingRequest<T> request = pendingRequests.add(method, resultType, null, null);
+		try {
+			transport.write(pendingRequests.toRequest(request, params));
+		} catch (IOException e) {
+			pendingRequests.remove(request);
+			request.getFuture().completeExceptionally(e);
+		}
+		return request.getFuture();
+	}
+
+	@Override
+	public void close() throws IOException {
+		transport.close();
+	}
+}
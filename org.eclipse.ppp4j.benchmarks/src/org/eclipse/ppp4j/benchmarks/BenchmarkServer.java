@@ -0,0 +1,120 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import org.eclipse.ppp4j.messages.ComponentVersion;
+import org.eclipse.ppp4j.messages.ComponentVersionSelection;
+import org.eclipse.ppp4j.messages.ErroneousParameter;
+import org.eclipse.ppp4j.messages.Initialize;
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.Instruction;
+import org.eclipse.ppp4j.messages.PreviewResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.ProvisionResult;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.messages.Template;
+import org.eclipse.ppp4j.messages.TemplateSelection;
+import org.eclipse.ppp4j.messages.ValidationResult;
+import org.eclipse.ppp4j.messages.Version;
+import org.eclipse.ppp4j.server.ProvisioningServer;
+
+/**
+ * Server answering every endpoint with prebuilt results about the size of the
+ * ones of the Rust and Web servers, so that benchmarks measure the protocol
+ * and not the work of a real server.
+ */
+public class BenchmarkServer extends ProvisioningServer {
+	static final ProvisioningParameters PARAMETERS = new ProvisioningParameters("benchmark", "/tmp/benchmark",
+			"1.0.0", new TemplateSelection("template1",
+					new ComponentVersionSelection[] { new ComponentVersionSelection("version", "1.0") }),
+			new ComponentVersionSelection[] { new ComponentVersionSelection("edition", "2018") });
+
+	private static final InitializeResult INITIALIZE_RESULT = createInitializeResult();
+	private static final ValidationResult VALIDATION_RESULT = new ValidationResult(null, new ErroneousParameter[0]);
+	private static final PreviewResult PREVIEW_RESULT = new PreviewResult(null, new ErroneousParameter[0],
+			"A new project named benchmark will be created in /tmp/benchmark.\n\nIt uses the template1 template.");
+	private static final ProvisionResult PROVISION_RESULT = new ProvisionResult(null, new ErroneousParameter[0],
+			"/tmp/benchmark", new String[] { "src/main.rs" });
+	private static final ProvisionInstructionsResult PROVISION_INSTRUCTIONS_RESULT = createInstructionsResult();
+
+	private final int maxConcurrentRequests;
+
+	public BenchmarkServer(int maxConcurrentRequests) {
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	@Override
+	protected int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	private static InitializeResult createInitializeResult() {
+		Template[] templates = new Template[5];
+		for (int i = 0; i < templates.length; i++) {
+			Version[] versions = new Version[10];
+			for (int j = 0; j < versions.length; j++) {
+				versions[j] = new Version(j + ".0", "Version " + j, null);
+			}
+			templates[i] = new Template("template" + i, "Template " + i, "Caption of template " + i,
+					new ComponentVersion[] { new ComponentVersion("version", "Version", null, versions) });
+		}
+		ComponentVersion edition = new ComponentVersion("edition", "Edition", "Language edition",
+				new Version[] { new Version("2015", "2015", null), new Version("2018", "2018", null) });
+		return new InitializeResult(true, true, true, templates, new ComponentVersion[] { edition }, PARAMETERS);
+	}
+
+	private static ProvisionInstructionsResult createInstructionsResult() {
+		Instruction[] files = new Instruction[5];
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			content.append("<p>Line ").append(i).append(" of a generated file</p>\n");
+		}
+		for (int i = 0; i < files.length; i++) {
+			files[i] = new Instruction("file" + i + ".html", content.toString());
+		}
+		return new ProvisionInstructionsResult(null, new ErroneousParameter[0], "benchmark", files,
+				new String[] { "file0.html" });
+	}
+
+	@Override
+	public RpcResponse generateResponseFromCustomEndpoint(RpcRequest request) {
+		return null;
+	}
+
+	@Override
+	public InitializeResult initialize(Initialize initialize) {
+		return INITIALIZE_RESULT;
+	}
+
+	@Override
+	public ValidationResult validation(ProvisioningParameters parameters) {
+		return VALIDATION_RESULT;
+	}
+
+	@Override
+	public PreviewResult preview(ProvisioningParameters parameters) {
+		return PREVIEW_RESULT;
+	}
+
+	@Override
+	public ProvisionResult provision(ProvisioningParameters parameters) {
+		return PROVISION_RESULT;
+	}
+
+	@Override
+	public ProvisionInstructionsResult provisionInstructions(ProvisioningParameters parameters) {
+		return PROVISION_INSTRUCTIONS_RESULT;
+	}
+}
@@ -0,0 +1,41 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this module with the GC profiler, which adds the
+ * allocation rate and bytes allocated per operation to the throughput and
+ * average time of each benchmark.
+ *
+ * The arguments are regular expressions selecting the benchmarks to run, all
+ * of them run when there is none.
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws RunnerException {
+		ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class);
+		if (args.length == 0) {
+			options.include(Benchmarks.class.getPackage().getName() + ".*"); //$NON-NLS-1$
+		}
+		for (String include : args) {
+			options.include(include);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,123 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ppp4j.messages.Catalog;
+import org.eclipse.ppp4j.messages.ComponentVersion;
+import org.eclipse.ppp4j.messages.ComponentVersionSelection;
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.Template;
+import org.eclipse.ppp4j.messages.TemplateSelection;
+import org.eclipse.ppp4j.messages.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the lookups a server does when previewing a selection, once with
+ * the array scans of the message classes and once through a {@link Catalog}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogBenchmark {
+	private static final int TEMPLATE_COUNT = 20;
+	private static final String TEMPLATE_COMPONENT = "version";
+	private static final String SHARED_COMPONENT = "mission";
+
+	@Param({ "100", "1000", "5000" })
+	public int versionCount;
+
+	private InitializeResult initializeResult;
+	private Catalog catalog;
+	private ProvisioningParameters parameters;
+
+	@Setup
+	public void setup() {
+		Template[] templates = new Template[TEMPLATE_COUNT];
+		for (int i = 0; i < templates.length; i++) {
+			templates[i] = new Template("template" + i, "Template " + i, null, new ComponentVersion[] {
+					new ComponentVersion(TEMPLATE_COMPONENT, "Version", null, versions("template" + i + '-')) });
+		}
+		ComponentVersion[] componentVersions = new ComponentVersion[] {
+				new ComponentVersion("cluster", "Cluster", null, versions("cluster-")),
+				new ComponentVersion(SHARED_COMPONENT, "Mission", null, versions("mission-")) };
+		initializeResult = new InitializeResult(true, true, true, templates, componentVersions, null);
+		catalog = new Catalog(initializeResult);
+
+		// select the last entries, the worst case for the scans
+		String templateId = "template" + (TEMPLATE_COUNT - 1);
+		parameters = new ProvisioningParameters("name", "location", "1.0",
+				new TemplateSelection(templateId,
+						new ComponentVersionSelection[] { new ComponentVersionSelection(TEMPLATE_COMPONENT,
+								templateId + '-' + (versionCount - 1)) }),
+				new ComponentVersionSelection[] { new ComponentVersionSelection("cluster", "cluster-0"),
+						new ComponentVersionSelection(SHARED_COMPONENT, "mission-" + (versionCount - 1)) });
+	}
+
+	private Version[] versions(String prefix) {
+		Version[] versions = new Version[versionCount];
+		for (int i = 0; i < versions.length; i++) {
+			versions[i] = new Version(prefix + i, "Version " + i, null);
+		}
+		return versions;
+	}
+
+	@Benchmark
+	public Version[] arrayScan() {
+		Template selectedTemplate = null;
+		for (Template template : initializeResult.templates) {
+			if (template.id.equals(parameters.templateSelection.id)) {
+				selectedTemplate = template;
+				break;
+			}
+		}
+		Version templateVersion = selectedTemplate.getComponentVersionById(TEMPLATE_COMPONENT)
+				.getVersionById(parameters.templateSelection.getComponentVersion(TEMPLATE_COMPONENT));
+		ComponentVersion mission = null;
+		for (ComponentVersion componentVersion : initializeResult.componentVersions) {
+			if (componentVersion.id.equals(SHARED_COMPONENT)) {
+				mission = componentVersion;
+				break;
+			}
+		}
+		Version missionVersion = mission
+				.getVersionById(parameters.getComponentVersionSelectionById(SHARED_COMPONENT).versionId);
+		return new Version[] { templateVersion, missionVersion };
+	}
+
+	@Benchmark
+	public Version[] catalog() {
+		return new Version[] { catalog.getSelectedTemplateVersion(parameters, TEMPLATE_COMPONENT),
+				catalog.getSelectedVersion(parameters, SHARED_COMPONENT) };
+	}
+
+	@Benchmark
+	public Catalog buildCatalog() {
+		return new Catalog(initializeResult);
+	}
+}
@@ -0,0 +1,83 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ppp4j.client.PendingRequestTable;
+import org.eclipse.ppp4j.messages.ProvisionResult;
+import org.eclipse.ppp4j.server.BoundedPipe;
+import org.eclipse.ppp4j.server.NewlineDelimitedTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Requests matched to their response by id in a {@link PendingRequestTable},
+ * as the Eclipse client does, against a {@link BenchmarkServer} running in the
+ * same JVM.
+ *
+ * Provisioning is used because, unlike validation and preview, its results are
+ * not cached by the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientCorrelationBenchmark {
+	private BenchmarkClient client;
+	private Thread serverThread;
+
+	@Setup
+	public void setup() {
+		BoundedPipe toServer = new BoundedPipe(1 << 16);
+		BoundedPipe fromServer = new BoundedPipe(1 << 16);
+		serverThread = new Thread(() -> new BenchmarkServer(4).beginListening(
+				new NewlineDelimitedTransport(toServer.getInputStream(), fromServer.getOutputStream())),
+				"benchmark-server"); //$NON-NLS-1$
+		serverThread.setDaemon(true);
+		serverThread.start();
+		client = new BenchmarkClient(
+				new NewlineDelimitedTransport(fromServer.getInputStream(), toServer.getOutputStream()));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, InterruptedException {
+		client.close();
+		serverThread.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	@Benchmark
+	public ProvisionResult roundTrip() throws InterruptedException, ExecutionException {
+		return client.send("provision", BenchmarkServer.PARAMETERS, ProvisionResult.class).get();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public ProvisionResult concurrentRoundTrips() throws InterruptedException, ExecutionException {
+		return client.send("provision", BenchmarkServer.PARAMETERS, ProvisionResult.class).get();
+	}
+}
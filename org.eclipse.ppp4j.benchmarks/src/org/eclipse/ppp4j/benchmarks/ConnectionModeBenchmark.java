@@ -0,0 +1,105 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ppp4j.client.DirectDispatcher;
+import org.eclipse.ppp4j.client.PendingRequest;
+import org.eclipse.ppp4j.client.PendingRequestTable;
+import org.eclipse.ppp4j.messages.ProvisionResult;
+import org.eclipse.ppp4j.server.BoundedPipe;
+import org.eclipse.ppp4j.server.NewlineDelimitedTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Requests to a {@link BenchmarkServer} in the same JVM, either as JSON over
+ * the bounded in-memory pipes of the in-process connection mode of the Eclipse
+ * client, or through the {@link DirectDispatcher} of its direct mode, which
+ * copies the messages and calls the server from its executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionModeBenchmark {
+	@Param({ "IN_PROCESS", "DIRECT" })
+	public String mode;
+
+	private BenchmarkServer server;
+	private BenchmarkClient client;
+	private Thread serverThread;
+	private PendingRequestTable pendingRequests;
+	private DirectDispatcher dispatcher;
+
+	@Setup
+	public void setup() {
+		server = new BenchmarkServer(4);
+		if (!"IN_PROCESS".equals(mode)) { //$NON-NLS-1$
+			pendingRequests = new PendingRequestTable("benchmark", RuntimeException::printStackTrace); //$NON-NLS-1$
+			dispatcher = new DirectDispatcher(server, pendingRequests, "benchmark"); //$NON-NLS-1$
+			return;
+		}
+		BoundedPipe toServer = new BoundedPipe(1 << 16);
+		BoundedPipe fromServer = new BoundedPipe(1 << 16);
+		serverThread = new Thread(() -> server.beginListening(
+				new NewlineDelimitedTransport(toServer.getInputStream(), fromServer.getOutputStream())),
+				"benchmark-server"); //$NON-NLS-1$
+		serverThread.setDaemon(true);
+		serverThread.start();
+		client = new BenchmarkClient(
+				new NewlineDelimitedTransport(fromServer.getInputStream(), toServer.getOutputStream()));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, InterruptedException {
+		if (client != null) {
+			client.close();
+			serverThread.join(TimeUnit.SECONDS.toMillis(5));
+		}
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+	}
+
+	@Benchmark
+	public ProvisionResult roundTrip() throws InterruptedException, ExecutionException {
+		if (client != null) {
+			return client.send("provision", BenchmarkServer.PARAMETERS, ProvisionResult.class).get();
+		}
+		// as the client does in direct mode, forgetting the request once answered
+		PendingRequest<ProvisionResult> request = pendingRequests.add("provision", ProvisionResult.class, null, //$NON-NLS-1$
+				null);
+		try {
+			dispatcher.dispatch(pendingRequests.toRequest(request, BenchmarkServer.PARAMETERS), request);
+			return request.getFuture().get();
+		} finally {
+			pendingRequests.remove(request);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.server.MessageDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Decoding of one message into its message class, the way it was done before
+ * {@link MessageDecoder}, by parsing into generic maps then serializing the
+ * payload back to JSON and parsing it again, against the streaming decoder
+ * binding the payload directly. Run with the GC profiler of
+ * {@link Benchmarks} to compare the bytes allocated per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+	private static final Gson gson = new Gson();
+
+	@Param({ "validationRequest", "initializeResponse", "instructionsResponse" })
+	public String message;
+
+	private String json;
+	private boolean request;
+	private Type payloadType;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer server = new BenchmarkServer(1);
+		switch (message) {
+		case "validationRequest":
+			json = gson.toJson(new RpcRequest("1", "projectProvisioning/validation", BenchmarkServer.PARAMETERS)); //$NON-NLS-1$ //$NON-NLS-2$
+			request = true;
+			payloadType = ProvisioningParameters.class;
+			break;
+		case "initializeResponse":
+			json = gson.toJson(new RpcResponse("1", server.initialize(null))); //$NON-NLS-1$
+			payloadType = InitializeResult.class;
+			break;
+		default:
+			json = gson.toJson(new RpcResponse("1", server.provisionInstructions(BenchmarkServer.PARAMETERS))); //$NON-NLS-1$
+			payloadType = ProvisionInstructionsResult.class;
+			break;
+		}
+	}
+
+	@Benchmark
+	public Object roundTrip() {
+		if (request) {
+			RpcRequest decoded = gson.fromJson(json, RpcRequest.class);
+			return gson.fromJson(gson.toJson(decoded.params), payloadType);
+		}
+		RpcResponse decoded = gson.fromJson(json, RpcResponse.class);
+		return gson.fromJson(gson.toJson(decoded.result), payloadType);
+	}
+
+	@Benchmark
+	public Object streaming() throws IOException {
+		JsonReader reader = new JsonReader(new StringReader(json));
+		if (request) {
+			return MessageDecoder.readRequest(gson, reader, method -> payloadType).params;
+		}
+		return MessageDecoder.readResponse(gson, reader, id -> payloadType).result;
+	}
+}
@@ -0,0 +1,116 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.benchmarks;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ppp4j.messages.Initialize;
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.PreviewResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.messages.ValidationResult;
+import org.eclipse.ppp4j.server.ContentLengthTransport;
+import org.eclipse.ppp4j.server.MessageDecoder;
+import org.eclipse.ppp4j.server.MessageTransport;
+import org.eclipse.ppp4j.server.NewlineDelimitedTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+/**
+ * One request through {@link org.eclipse.ppp4j.server.ProvisioningServer}:
+ * decoding, dispatch to the endpoint and encoding of the response, over
+ * in-memory pipes in place of the standard streams.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerRoundTripBenchmark {
+	private static final Gson gson = new Gson();
+
+	@Param({ "initalize", "validation", "preview", "provisionInstructions" })
+	public String method;
+
+	@Param({ "newline", "contentLength" })
+	public String framing;
+
+	private MessageTransport client;
+	private Thread serverThread;
+	private RpcRequest request;
+	private Class<?> resultType;
+
+	@Setup
+	public void setup() throws IOException {
+		PipedInputStream serverInput = new PipedInputStream(1 << 16);
+		PipedOutputStream clientOutput = new PipedOutputStream(serverInput);
+		PipedInputStream clientInput = new PipedInputStream(1 << 16);
+		PipedOutputStream serverOutput = new PipedOutputStream(clientInput);
+		MessageTransport server = createTransport(serverInput, serverOutput);
+		client = createTransport(clientInput, clientOutput);
+		serverThread = new Thread(() -> new BenchmarkServer(1).beginListening(server), "benchmark-server"); //$NON-NLS-1$
+		serverThread.setDaemon(true);
+		serverThread.start();
+		Object params = "initalize".equals(method) ? new Initialize(true, true) : BenchmarkServer.PARAMETERS;
+		request = new RpcRequest("1", "projectProvisioning/" + method, params);
+		resultType = getResultType(method);
+	}
+
+	private static Class<?> getResultType(String method) {
+		switch (method) {
+		case "initalize":
+			return InitializeResult.class;
+		case "validation":
+			return ValidationResult.class;
+		case "preview":
+			return PreviewResult.class;
+		default:
+			return ProvisionInstructionsResult.class;
+		}
+	}
+
+	private MessageTransport createTransport(PipedInputStream input, PipedOutputStream output) {
+		return "contentLength".equals(framing) ? new ContentLengthTransport(input, output)
+				: new NewlineDelimitedTransport(input, output);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, InterruptedException {
+		client.close();
+		serverThread.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	@Benchmark
+	public RpcResponse roundTrip() throws IOException {
+		client.write(request);
+		return client.read(reader -> MessageDecoder.readResponse(gson, reader, id -> resultType));
+	}
+}
@@ -0,0 +1,102 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InitializeResultCacheTest {
+	private static final String SERVER_ID = "rust:Rust Project";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<String> warnings = new ArrayList<>();
+	private InitializeResultCache cache;
+
+	@Before
+	public void setUp() {
+		cache = new InitializeResultCache(folder.getRoot(), (message, cause) -> warnings.add(message));
+	}
+
+	private static InitializeResult result(String hash) {
+		InitializeResult result = new InitializeResult();
+		result.hash = hash;
+		result.previewSupported = true;
+		return result;
+	}
+
+	@Test
+	public void testHit() {
+		cache.save(SERVER_ID, result("a"));
+		InitializeResult loaded = cache.load(SERVER_ID);
+		assertEquals("a", loaded.hash);
+		assertTrue(loaded.previewSupported);
+		// the server confirms the cached result, nothing to refetch
+		InitializeResult confirmation = new InitializeResult();
+		confirmation.hash = "a";
+		confirmation.unchanged = true;
+		assertNull(cache.update(SERVER_ID, loaded, confirmation));
+		assertTrue(warnings.isEmpty());
+	}
+
+	@Test
+	public void testMiss() {
+		assertNull(cache.load(SERVER_ID));
+		InitializeResult fetched = result("a");
+		assertSame(fetched, cache.update(SERVER_ID, null, fetched));
+		assertEquals("a", cache.load(SERVER_ID).hash);
+	}
+
+	@Test
+	public void testHashMismatchReplacesCachedResult() {
+		cache.save(SERVER_ID, result("a"));
+		InitializeResult cached = cache.load(SERVER_ID);
+		InitializeResult refetched = result("b");
+		assertSame(refetched, cache.update(SERVER_ID, cached, refetched));
+		assertEquals("b", cache.load(SERVER_ID).hash);
+	}
+
+	@Test
+	public void testResultWithoutHashNotStored() {
+		cache.save(SERVER_ID, result(null));
+		assertNull(cache.load(SERVER_ID));
+	}
+
+	@Test
+	public void testCorruptFileIgnored() throws Exception {
+		cache.save(SERVER_ID, result("a"));
+		File[] files = folder.getRoot().listFiles();
+		assertEquals(1, files.length);
+		Files.write(files[0].toPath(), "{\"hash\": \"a\", \"templates\": [".getBytes(StandardCharsets.UTF_8));
+		assertNull(cache.load(SERVER_ID));
+		assertEquals(1, warnings.size());
+		// a new result replaces the corrupt one
+		cache.update(SERVER_ID, null, result("b"));
+		assertEquals("b", cache.load(SERVER_ID).hash);
+	}
+}
@@ -0,0 +1,105 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.eclipse.ppp4j.messages.Progress;
+import org.eclipse.ppp4j.messages.ResponseError;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.messages.ValidationResult;
+import org.eclipse.ppp4j.server.ProvisioningServer;
+import org.junit.Test;
+
+public class PendingRequestTableTest {
+	private final List<RuntimeException> listenerErrors = new ArrayList<>();
+	private final PendingRequestTable table = new PendingRequestTable("test", listenerErrors::add);
+
+	@Test
+	public void testResponsesCompleteTheirRequestInAnyOrder() throws Exception {
+		PendingRequest<ValidationResult> first = table.add("validation", ValidationResult.class, null, null);
+		PendingRequest<ValidationResult> second = table.add("validation", ValidationResult.class, null, null);
+		assertEquals("projectProvisioning/validation", table.toRequest(first, null).method);
+		assertEquals(ValidationResult.class, table.getResultType(second.getId()));
+
+		ValidationResult secondResult = new ValidationResult("second", null);
+		table.complete(new RpcResponse(second.getId(), secondResult), 10);
+		assertSame(secondResult, second.getFuture().get());
+		assertFalse(first.getFuture().isDone());
+		assertEquals(10, second.getBytesIn());
+
+		ValidationResult firstResult = new ValidationResult("first", null);
+		table.complete(new RpcResponse(first.getId(), firstResult), 10);
+		assertSame(firstResult, first.getFuture().get());
+		assertEquals(0, table.size());
+	}
+
+	@Test
+	public void testErrorResponseFailsRequest() throws Exception {
+		PendingRequest<ValidationResult> request = table.add("validation", ValidationResult.class, null, null);
+		table.complete(new RpcResponse(request.getId(), new ResponseError(ResponseError.INTERNAL_ERROR, "boom")),
+				-1);
+		try {
+			request.getFuture().get();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+			assertTrue(e.getCause().getMessage().contains("boom"));
+			return;
+		}
+		throw new AssertionError("The request did not fail");
+	}
+
+	@Test
+	public void testLateResponseIgnored() {
+		PendingRequest<ValidationResult> request = table.add("validation", ValidationResult.class, null, null);
+		table.remove(request);
+		table.complete(new RpcResponse(request.getId(), new ValidationResult()), -1);
+		assertFalse(request.getFuture().isDone());
+		assertNull(table.get(request.getId()));
+	}
+
+	@Test
+	public void testProgressGoesToItsRequest() {
+		List<Progress> progress = new ArrayList<>();
+		PendingRequest<ValidationResult> request = table.add("provision", ValidationResult.class, progress::add,
+				null);
+		table.add("provision", ValidationResult.class, p -> {
+			throw new IllegalStateException();
+		}, null);
+		table.handleNotification(new RpcRequest(null, "projectProvisioning/" + ProvisioningServer.PROGRESS_METHOD,
+				new Progress(request.getId(), "half", 1, 2)));
+		table.handleNotification(new RpcRequest(null, "projectProvisioning/" + ProvisioningServer.PROGRESS_METHOD,
+				new Progress("1", "failing", 1, 2)));
+		assertEquals(1, progress.size());
+		assertEquals("half", progress.get(0).message);
+		assertEquals(1, listenerErrors.size());
+	}
+
+	@Test
+	public void testFailAll() {
+		PendingRequest<ValidationResult> request = table.add("validation", ValidationResult.class, null, null);
+		table.failAll(new IOException("closed"));
+		assertTrue(request.getFuture().isCompletedExceptionally());
+		assertEquals(0, table.size());
+	}
+}
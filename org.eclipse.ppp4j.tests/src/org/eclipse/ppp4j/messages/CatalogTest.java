@@ -0,0 +1,96 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CatalogTest {
+	private final Version node8 = new Version("8", "Node 8", null);
+	private final Version node10 = new Version("10", "Node 10", null);
+	private final ComponentVersion runtime = new ComponentVersion("runtime", "Runtime", null,
+			new Version[] { node8, node10 });
+	private final Version rest = new Version("rest", "REST", null);
+	private final ComponentVersion mission = new ComponentVersion("mission", "Mission", null,
+			new Version[] { rest });
+	private final Template node = new Template("node", "Node.js", null, new ComponentVersion[] { runtime });
+	private final Catalog catalog = new Catalog(new Template[] { node }, new ComponentVersion[] { mission });
+
+	@Test
+	public void testLookupById() {
+		assertSame(node, catalog.getTemplate("node"));
+		assertSame(mission, catalog.getComponentVersion("mission"));
+		assertSame(runtime, catalog.getComponentVersion("node", "runtime"));
+		assertSame(node10, catalog.getVersion(runtime, "10"));
+		assertSame(rest, catalog.getVersion(mission, "rest"));
+	}
+
+	@Test
+	public void testLookupOfSelection() {
+		ProvisioningParameters parameters = new ProvisioningParameters();
+		parameters.templateSelection = new TemplateSelection("node",
+				new ComponentVersionSelection[] { new ComponentVersionSelection("runtime", "8") });
+		parameters.componentVersionSelections = new ComponentVersionSelection[] {
+				new ComponentVersionSelection("mission", "rest") };
+		assertSame(node8, catalog.getSelectedTemplateVersion(parameters, "runtime"));
+		assertSame(rest, catalog.getSelectedVersion(parameters, "mission"));
+		assertNull(catalog.getSelectedVersion(parameters, "cluster"));
+	}
+
+	@Test
+	public void testMissingIds() {
+		assertNull(catalog.getTemplate("python"));
+		assertNull(catalog.getTemplate(null));
+		assertNull(catalog.getComponentVersion("cluster"));
+		// template components are not shared ones, and the other way around
+		assertNull(catalog.getComponentVersion("runtime"));
+		assertNull(catalog.getComponentVersion("node", "mission"));
+		assertNull(catalog.getComponentVersion("python", "runtime"));
+		assertNull(catalog.getComponentVersion(null, "runtime"));
+		assertNull(catalog.getVersion(runtime, "12"));
+		assertNull(catalog.getVersion(runtime, null));
+		assertNull(catalog.getVersion(null, "8"));
+		// only the components of the catalog are indexed
+		assertNull(catalog.getVersion(new ComponentVersion(runtime), "8"));
+		assertNull(catalog.getSelectedTemplateVersion(new ProvisioningParameters(), "runtime"));
+	}
+
+	@Test
+	public void testNullArrays() {
+		Catalog empty = new Catalog(new InitializeResult());
+		assertTrue(empty.getTemplates().isEmpty());
+		assertTrue(empty.getComponentVersions().isEmpty());
+		assertNull(empty.getTemplate("node"));
+
+		ComponentVersion noVersions = new ComponentVersion("runtime", "Runtime", null, null);
+		Template noComponents = new Template("node", "Node.js", null, null);
+		Catalog sparse = new Catalog(new Template[] { null, noComponents, new Template() },
+				new ComponentVersion[] { noVersions, null });
+		assertEquals(1, sparse.getTemplates().size());
+		assertSame(noComponents, sparse.getTemplate("node"));
+		assertNull(sparse.getComponentVersion("node", "runtime"));
+		assertNull(sparse.getVersion(noVersions, "8"));
+	}
+
+	@Test
+	public void testFirstOfDuplicateIdsWins() {
+		Template other = new Template("node", "Other", null, null);
+		Catalog duplicates = new Catalog(new Template[] { node, other }, null);
+		assertSame(node, duplicates.getTemplate("node"));
+		assertEquals(1, duplicates.getTemplates().size());
+	}
+}
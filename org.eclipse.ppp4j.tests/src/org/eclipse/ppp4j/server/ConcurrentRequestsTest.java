@@ -0,0 +1,120 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ppp4j.client.PendingRequest;
+import org.eclipse.ppp4j.client.PendingRequestTable;
+import org.eclipse.ppp4j.messages.ErroneousParameter;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.ValidationResult;
+import org.junit.Test;
+
+/**
+ * Many threads sending requests at once to a server answering them out of
+ * order, to check that every response reaches the request it answers.
+ */
+public class ConcurrentRequestsTest {
+	private static final int SENDERS = 16;
+	private static final int REQUESTS_PER_SENDER = 500;
+
+	@Test(timeout = 60000)
+	public void testEveryResponseMatchesItsRequest() throws Exception {
+		TestServer server = new TestServer(8);
+		// the name is echoed so that each result tells which request it answers
+		server.validator = parameters -> {
+			if (parameters.name.hashCode() % 3 == 0) {
+				Thread.yield();
+			}
+			return new ValidationResult(parameters.name, new ErroneousParameter[0]);
+		};
+		BoundedPipe toServer = new BoundedPipe(1 << 12);
+		BoundedPipe fromServer = new BoundedPipe(1 << 12);
+		Thread serverThread = new Thread(() -> server.beginListening(
+				new NewlineDelimitedTransport(toServer.getInputStream(), fromServer.getOutputStream())),
+				"ppp4j-test-server");
+		serverThread.setDaemon(true);
+		serverThread.start();
+		MessageTransport transport = new NewlineDelimitedTransport(fromServer.getInputStream(),
+				toServer.getOutputStream());
+		PendingRequestTable table = new PendingRequestTable("test", e -> {
+			throw e;
+		});
+		Thread reader = new Thread(() -> {
+			try {
+				while (table.readMessage(transport) != null) {
+					// responses complete their pending request
+				}
+			} catch (IOException e) {
+				// closed by the test
+			} finally {
+				table.failAll(new IOException("closed"));
+			}
+		}, "ppp4j-test-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<List<CompletableFuture<String>>>> sent = new ArrayList<>();
+			for (int s = 0; s < SENDERS; s++) {
+				int sender = s;
+				sent.add(senders.submit(() -> {
+					start.await();
+					List<CompletableFuture<String>> checks = new ArrayList<>();
+					for (int r = 0; r < REQUESTS_PER_SENDER; r++) {
+						String name = sender + "-" + r;
+						PendingRequest<ValidationResult> request = table.add("validation", ValidationResult.class,
+								null, null);
+						ProvisioningParameters parameters = new ProvisioningParameters();
+						parameters.name = name;
+						transport.write(table.toRequest(request, parameters));
+						checks.add(request.getFuture().thenApply(result -> name.equals(result.errorMessage) ? null
+								: "Request " + name + " got the result of " + result.errorMessage));
+					}
+					return checks;
+				}));
+			}
+			start.countDown();
+			int answered = 0;
+			for (Future<List<CompletableFuture<String>>> sender : sent) {
+				for (CompletableFuture<String> check : sender.get(30, TimeUnit.SECONDS)) {
+					String mismatch = check.get(30, TimeUnit.SECONDS);
+					assertNull(mismatch, mismatch);
+					answered++;
+				}
+			}
+			assertEquals(SENDERS * REQUESTS_PER_SENDER, answered);
+			assertEquals(0, table.size());
+		} finally {
+			senders.shutdownNow();
+			transport.close();
+			serverThread.join(TimeUnit.SECONDS.toMillis(5));
+		}
+		assertFalse(serverThread.isAlive());
+	}
+}
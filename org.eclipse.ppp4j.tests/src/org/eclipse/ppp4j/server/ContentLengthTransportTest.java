@@ -0,0 +1,139 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class ContentLengthTransportTest {
+	private static final Gson gson = new Gson();
+
+	private static ContentLengthTransport transport(String input) {
+		return new ContentLengthTransport(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+				new ByteArrayOutputStream());
+	}
+
+	private static String message(String body) {
+		return "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + body;
+	}
+
+	private static String read(MessageTransport transport) throws IOException {
+		RpcRequest request = transport.read(reader -> gson.fromJson(reader, RpcRequest.class));
+		return request == null ? null : request.id;
+	}
+
+	private static void assertMalformed(MessageTransport transport) throws IOException {
+		try {
+			read(transport);
+			fail("read a malformed message");
+		} catch (MalformedMessageException e) {
+			// expected
+		}
+	}
+
+	private static void assertEndOfStream(MessageTransport transport) throws IOException {
+		try {
+			read(transport);
+			fail("read a truncated message");
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFraming() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ContentLengthTransport writer = new ContentLengthTransport(new ByteArrayInputStream(new byte[0]), output);
+		writer.write(new RpcRequest("1", "projectProvisioning/initalize", null));
+		writer.write(new RpcRequest("été", "projectProvisioning/validation", null));
+
+		ContentLengthTransport reader = new ContentLengthTransport(new ByteArrayInputStream(output.toByteArray()),
+				new ByteArrayOutputStream());
+		assertEquals("1", read(reader));
+		// the length counts bytes, not characters
+		assertEquals("été", read(reader));
+		assertNull(read(reader));
+		assertEquals(output.size(), reader.getBytesRead());
+		assertEquals(output.size(), writer.getBytesWritten());
+	}
+
+	@Test
+	public void testHeaders() throws IOException {
+		String body = "{\"id\":\"1\"}";
+		ContentLengthTransport transport = transport("content-length: 10\r\nContent-Type: application/json\r\n\r\n"
+				+ body + "CONTENT-LENGTH:10\n\n" + body.replace('1', '2') + "\r\n\r\n" + message("{\"id\":\"3\"}"));
+		assertEquals("1", read(transport));
+		assertEquals("2", read(transport));
+		// blank lines between messages are ignored
+		assertEquals("3", read(transport));
+		assertNull(read(transport));
+	}
+
+	@Test
+	public void testMalformedContentIsSkipped() throws IOException {
+		ContentLengthTransport transport = transport(
+				message("{\"id\": ]") + message("{\"id\":\"1\"}") + message("not json") + message("{\"id\":\"2\"}"));
+		assertMalformed(transport);
+		assertEquals("1", read(transport));
+		assertMalformed(transport);
+		assertEquals("2", read(transport));
+		assertNull(read(transport));
+	}
+
+	@Test
+	public void testInvalidLengthIsSkipped() throws IOException {
+		ContentLengthTransport transport = transport("Content-Length: -5\r\n\r\n{\"id\":\"0\"}"
+				+ message("{\"id\":\"1\"}") + "Content-Length: ten\r\n\r\n{\"id\":\"0\"}"
+				+ message("{\"id\":\"2\"}") + "Content-Length: 99999999999\r\n\r\n{}" + message("{\"id\":\"3\"}"));
+		assertMalformed(transport);
+		assertEquals("1", read(transport));
+		assertMalformed(transport);
+		assertEquals("2", read(transport));
+		assertMalformed(transport);
+		assertEquals("3", read(transport));
+		assertNull(read(transport));
+	}
+
+	@Test
+	public void testInvalidLengthAtEndOfStream() throws IOException {
+		ContentLengthTransport transport = transport(message("{\"id\":\"1\"}") + "Content-Length: -1\r\n\r\n{}");
+		assertEquals("1", read(transport));
+		assertMalformed(transport);
+		assertNull(read(transport));
+	}
+
+	@Test
+	public void testTruncatedMessages() throws IOException {
+		assertNull(read(transport("")));
+		assertNull(read(transport("\r\n\r\n")));
+		assertEndOfStream(transport("Content-Length: 10\r\n"));
+		assertEndOfStream(transport("Content-Length: 10\r\nContent-Type: application/json"));
+
+		ContentLengthTransport transport = transport(message("{\"id\":\"1\"}") + "Content-Length: 20\r\n\r\n{\"id\":\"2\"}");
+		assertEquals("1", read(transport));
+		assertEndOfStream(transport);
+		assertNull(read(transport));
+	}
+}
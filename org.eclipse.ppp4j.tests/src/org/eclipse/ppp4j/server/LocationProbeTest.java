@@ -0,0 +1,120 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocationProbeTest {
+	private static final long LONG_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMissingLocation() {
+		LocationProbe probe = new LocationProbe(LONG_TTL_MILLIS, false);
+		LocationProbe.Result result = probe.probe(new File(folder.getRoot(), "project").getPath());
+		assertFalse(result.exists());
+		assertFalse(result.isFile());
+		assertFalse(result.isWritable());
+		assertTrue(result.hasParent());
+		assertTrue(result.isParentWritable());
+
+		result = probe.probe(new File(folder.getRoot(), "missing/project").getPath());
+		assertFalse(result.exists());
+		assertTrue(result.hasParent());
+		assertFalse(result.isParentWritable());
+	}
+
+	@Test
+	public void testExistingLocation() throws IOException {
+		LocationProbe probe = new LocationProbe(LONG_TTL_MILLIS, false);
+		LocationProbe.Result directory = probe.probe(folder.newFolder("project").getPath());
+		assertTrue(directory.exists());
+		assertFalse(directory.isFile());
+		assertTrue(directory.isWritable());
+		assertTrue(directory.hasParent());
+		// only checked for missing locations
+		assertFalse(directory.isParentWritable());
+
+		LocationProbe.Result file = probe.probe(folder.newFile("Cargo.toml").getPath());
+		assertTrue(file.exists());
+		assertTrue(file.isFile());
+
+		assertFalse(probe.probe(File.listRoots()[0].getPath()).hasParent());
+	}
+
+	@Test
+	public void testInvalidPath() {
+		LocationProbe probe = new LocationProbe(LONG_TTL_MILLIS, false);
+		LocationProbe.Result result = probe.probe("invalid\0path");
+		assertFalse(result.exists());
+		assertFalse(result.hasParent());
+		assertFalse(result.isParentWritable());
+		// nothing to drop
+		probe.invalidate("invalid\0path");
+	}
+
+	@Test(timeout = 10000)
+	public void testProbeExpires() throws Exception {
+		LocationProbe probe = new LocationProbe(50, false);
+		File location = new File(folder.getRoot(), "project");
+		assertFalse(probe.probe(location.getPath()).exists());
+		assertTrue(location.mkdir());
+		long expires = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+		LocationProbe.Result result = probe.probe(location.getPath());
+		if (System.nanoTime() - expires < 0) {
+			assertFalse(result.exists());
+		}
+		while (!probe.probe(location.getPath()).exists()) {
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testInvalidate() {
+		LocationProbe probe = new LocationProbe(LONG_TTL_MILLIS, false);
+		File location = new File(folder.getRoot(), "project");
+		assertFalse(probe.probe(location.getPath()).exists());
+		assertTrue(location.mkdir());
+		assertFalse(probe.probe(location.getPath()).exists());
+		// the path is normalized, so any spelling of the location drops it
+		probe.invalidate(folder.getRoot().getPath() + "/./project");
+		assertTrue(probe.probe(location.getPath()).exists());
+	}
+
+	@Test
+	public void testProbesAreBounded() {
+		LocationProbe probe = new LocationProbe(LONG_TTL_MILLIS, false);
+		File location = new File(folder.getRoot(), "project");
+		assertFalse(probe.probe(location.getPath()).exists());
+		assertTrue(location.mkdir());
+		for (int i = 1; i < LocationProbe.MAX_PROBES; i++) {
+			probe.probe(new File(folder.getRoot(), "other" + i).getPath());
+		}
+		// still within the bound
+		assertFalse(probe.probe(location.getPath()).exists());
+		// none expired, so all are dropped to make room
+		probe.probe(new File(folder.getRoot(), "one-more").getPath());
+		assertTrue(probe.probe(location.getPath()).exists());
+	}
+}
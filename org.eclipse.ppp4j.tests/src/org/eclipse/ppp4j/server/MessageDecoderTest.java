@@ -0,0 +1,93 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.ResponseError;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.messages.ValidationResult;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+public class MessageDecoderTest {
+	private static final Gson gson = new Gson();
+
+	private static JsonReader reader(String json) {
+		return new JsonReader(new StringReader(json));
+	}
+
+	private static RpcRequest readRequest(String json) throws IOException {
+		return MessageDecoder.readRequest(gson, reader(json),
+				method -> "validation".equals(method) ? ProvisioningParameters.class : null);
+	}
+
+	private static RpcResponse readResponse(String json) throws IOException {
+		return MessageDecoder.readResponse(gson, reader(json), id -> "1".equals(id) ? ValidationResult.class : null);
+	}
+
+	@Test
+	public void testRequestParamsBoundInAnyOrder() throws IOException {
+		for (String json : new String[] { "{\"id\":\"1\",\"method\":\"validation\",\"params\":{\"name\":\"app\"}}",
+				"{\"params\":{\"name\":\"app\"},\"id\":\"1\",\"method\":\"validation\"}" }) {
+			RpcRequest request = readRequest(json);
+			assertEquals("1", request.id);
+			assertEquals("validation", request.method);
+			assertEquals("app", ((ProvisioningParameters) request.params).name);
+		}
+		// unknown methods keep generic parameters
+		assertTrue(readRequest("{\"method\":\"other\",\"params\":{\"name\":\"app\"}}").params instanceof Map);
+	}
+
+	@Test
+	public void testResponseResultBoundInAnyOrder() throws IOException {
+		for (String json : new String[] { "{\"id\":\"1\",\"result\":{\"errorMessage\":\"Invalid\"}}",
+				"{\"result\":{\"errorMessage\":\"Invalid\"},\"id\":\"1\"}" }) {
+			RpcResponse response = readResponse(json);
+			assertEquals("1", response.id);
+			assertEquals("Invalid", ((ValidationResult) response.result).errorMessage);
+			assertNull(response.error);
+		}
+		RpcResponse error = readResponse("{\"id\":\"2\",\"error\":{\"code\":-32603,\"message\":\"failed\"}}");
+		assertNull(error.result);
+		assertEquals(ResponseError.INTERNAL_ERROR, error.error.code);
+	}
+
+	@Test
+	public void testUnexpectedMessageKind() throws IOException {
+		try {
+			readRequest("{\"id\":\"1\",\"result\":null}");
+			fail("read a response as a request");
+		} catch (JsonParseException e) {
+			// expected
+		}
+		try {
+			readResponse("{\"id\":\"1\",\"method\":\"validation\"}");
+			fail("read a request as a response");
+		} catch (JsonParseException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ppp4j.messages.ErroneousParameter;
+import org.eclipse.ppp4j.messages.Initialize;
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.Instruction;
+import org.eclipse.ppp4j.messages.Progress;
+import org.eclipse.ppp4j.messages.ProvisionBatchResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.ProvisionResult;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.ResponseError;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.messages.ValidationResult;
+import org.junit.Test;
+
+public class ProvisioningServerTest {
+
+	private static ProvisioningParameters parameters(String name) {
+		ProvisioningParameters parameters = new ProvisioningParameters();
+		parameters.name = name;
+		parameters.location = "/tmp/" + name;
+		return parameters;
+	}
+
+	@Test(timeout = 10000)
+	public void testStalledProvisionDoesNotDelayValidation() throws Exception {
+		TestServer server = new TestServer(2);
+		CountDownLatch provisionStarted = new CountDownLatch(1);
+		CountDownLatch releaseProvision = new CountDownLatch(1);
+		server.provisioner = parameters -> {
+			provisionStarted.countDown();
+			try {
+				releaseProvision.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new ProvisionResult(null, new ErroneousParameter[0], parameters.location, new String[0]);
+		};
+		try (ServerConnection connection = new ServerConnection(server)) {
+			connection.send("1", "provision", parameters("stalled"));
+			assertTrue(provisionStarted.await(5, TimeUnit.SECONDS));
+			connection.send("2", "validation", parameters("valid"));
+
+			RpcResponse validation = connection.readResponse(id -> ValidationResult.class);
+			assertEquals("2", validation.id);
+			assertNull(((ValidationResult) validation.result).errorMessage);
+
+			releaseProvision.countDown();
+			RpcResponse provision = connection.readResponse(id -> ProvisionResult.class);
+			assertEquals("1", provision.id);
+			assertEquals("/tmp/stalled", ((ProvisionResult) provision.result).location);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testPingAnsweredWhileWorkersAreBusy() throws Exception {
+		TestServer server = new TestServer(1);
+		CountDownLatch provisionStarted = new CountDownLatch(1);
+		CountDownLatch releaseProvision = new CountDownLatch(1);
+		server.provisioner = parameters -> {
+			provisionStarted.countDown();
+			try {
+				releaseProvision.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new ProvisionResult(null, new ErroneousParameter[0], parameters.location, new String[0]);
+		};
+		try (ServerConnection connection = new ServerConnection(server)) {
+			connection.send("1", "provision", parameters("stalled"));
+			assertTrue(provisionStarted.await(5, TimeUnit.SECONDS));
+			connection.send("2", ProvisioningServer.PING_METHOD, null);
+
+			RpcResponse ping = connection.readResponse(id -> Object.class);
+			assertEquals("2", ping.id);
+			assertNull(ping.result);
+			assertNull(ping.error);
+
+			releaseProvision.countDown();
+			assertEquals("1", connection.readResponse(id -> ProvisionResult.class).id);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testFailedRequestIsAnswered() throws Exception {
+		TestServer server = new TestServer(1);
+		server.provisioner = parameters -> {
+			throw new IllegalStateException("disk full");
+		};
+		try (ServerConnection connection = new ServerConnection(server)) {
+			connection.send("1", "provision", parameters("failing"));
+			RpcResponse response = connection.readResponse(id -> ProvisionResult.class);
+			assertEquals("1", response.id);
+			assertNull(response.result);
+			assertNotNull(response.error);
+			assertEquals(ResponseError.INTERNAL_ERROR, response.error.code);
+			assertTrue(response.error.message, response.error.message.contains("disk full"));
+
+			// the worker is still serving requests
+			connection.send("2", "validation", parameters("valid"));
+			assertEquals("2", connection.readResponse(id -> ValidationResult.class).id);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testBatchAcceptsValidationWithoutErroneousParameters() throws Exception {
+		TestServer server = new TestServer(1);
+		server.validator = parameters -> new ValidationResult(null, null);
+		try (ServerConnection connection = new ServerConnection(server)) {
+			connection.send("1", "provisionBatch",
+					new ProvisioningParameters[] { parameters("first"), parameters("second") });
+			RpcResponse response = connection.readResponse(id -> ProvisionBatchResult.class);
+			assertNull(response.error);
+			ProvisionBatchResult result = (ProvisionBatchResult) response.result;
+			assertNull(result.errorMessage);
+			assertEquals("/tmp/first", result.results[0].location);
+			assertEquals("/tmp/second", result.results[1].location);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testBatchRejectsInvalidProjectWithoutErroneousParameters() throws Exception {
+		TestServer server = new TestServer(1);
+		server.validator = parameters -> new ValidationResult("second".equals(parameters.name) ? "Invalid" : null,
+				null);
+		try (ServerConnection connection = new ServerConnection(server)) {
+			connection.send("1", "provisionBatch",
+					new ProvisioningParameters[] { parameters("first"), parameters("second") });
+			ProvisionBatchResult result = (ProvisionBatchResult) connection
+					.readResponse(id -> ProvisionBatchResult.class).result;
+			assertNotNull(result.errorMessage);
+			assertNull(result.results[0].location);
+			assertEquals("Invalid", result.results[1].errorMessage);
+			assertEquals(0, result.results[1].erroneousParameters.length);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testNoNotificationsUnlessRequested() throws Exception {
+		try (ServerConnection connection = new ServerConnection(new TestServer(1))) {
+			connection.send("1", "provisionBatch", new ProvisioningParameters[] { parameters("first") });
+			Object message = connection.read(method -> Progress.class, id -> ProvisionBatchResult.class);
+			assertTrue(message instanceof RpcResponse);
+			assertEquals("1", ((RpcResponse) message).id);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testNotificationsOnceRequested() throws Exception {
+		try (ServerConnection connection = new ServerConnection(new TestServer(1))) {
+			Initialize initialize = new Initialize(false, true);
+			initialize.notificationsSupported = true;
+			connection.send("1", "initalize", initialize);
+			connection.readResponse(id -> null);
+			connection.send("2", "provisionBatch", new ProvisioningParameters[] { parameters("first") });
+			Object message = connection.read(method -> Progress.class, id -> ProvisionBatchResult.class);
+			assertTrue(message instanceof RpcRequest);
+			assertEquals("projectProvisioning/" + ProvisioningServer.PROGRESS_METHOD, ((RpcRequest) message).method);
+			assertEquals("2", ((Progress) ((RpcRequest) message).params).id);
+			assertEquals("2", connection.readResponse(id -> ProvisionBatchResult.class).id);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testChunkedContentInlinedUnlessNotificationsRequested() throws Exception {
+		byte[] content = "binary\0content".getBytes(StandardCharsets.ISO_8859_1);
+		TestServer server = new TestServer(1);
+		server.instructions = parameters -> new ProvisionInstructionsResult(null, new ErroneousParameter[0],
+				parameters.name,
+				new Instruction[] { Instruction.chunked("data.bin", () -> new ByteArrayInputStream(content)) },
+				new String[0]);
+		try (ServerConnection connection = new ServerConnection(server)) {
+			connection.send("1", "provisionInstructions", parameters("chunked"));
+			Object message = connection.read(method -> null, id -> ProvisionInstructionsResult.class);
+			assertTrue(message instanceof RpcResponse);
+			Instruction instruction = ((ProvisionInstructionsResult) ((RpcResponse) message).result).newFiles[0];
+			assertEquals(Instruction.BASE64, instruction.encoding);
+			assertFalse(instruction.chunked);
+			assertEquals(content.length, instruction.size);
+			assertEquals(new String(content, StandardCharsets.ISO_8859_1), new String(
+					Base64.getDecoder().decode(instruction.content), StandardCharsets.ISO_8859_1));
+		}
+	}
+
+	@Test
+	public void testInitializeUnchangedOnlyWhenHashMatches() {
+		TestServer server = new TestServer(1);
+		InitializeResult first = (InitializeResult) server
+				.handleRequest(new RpcRequest("1", "projectProvisioning/initalize", new Initialize(true, true))).result;
+		assertNotNull(first.hash);
+		assertFalse(first.unchanged);
+
+		InitializeResult confirmed = (InitializeResult) server.handleRequest(new RpcRequest("2",
+				"projectProvisioning/initalize", new Initialize(true, true, first.hash))).result;
+		assertTrue(confirmed.unchanged);
+		assertEquals(first.hash, confirmed.hash);
+
+		InitializeResult refetched = (InitializeResult) server.handleRequest(new RpcRequest("3",
+				"projectProvisioning/initalize", new Initialize(true, true, "outdated"))).result;
+		assertFalse(refetched.unchanged);
+		assertEquals(first.hash, refetched.hash);
+	}
+
+	@Test
+	public void testSharedInitializeResultIsNotModified() {
+		TestServer server = new TestServer(1);
+		InitializeResult shared = new InitializeResult(true, true, false, null, null, parameters("default"));
+		server.initializer = initialize -> shared;
+		InitializeResult first = (InitializeResult) server
+				.handleRequest(new RpcRequest("1", "projectProvisioning/initalize", new Initialize(true, true))).result;
+		assertNotSame(shared, first);
+		assertNotNull(first.hash);
+		assertTrue(first.versionRequired);
+		assertEquals("default", first.defaultProvisioningParameters.name);
+		assertNotSame(shared.defaultProvisioningParameters, first.defaultProvisioningParameters);
+
+		InitializeResult confirmed = (InitializeResult) server.handleRequest(new RpcRequest("2",
+				"projectProvisioning/initalize", new Initialize(true, true, first.hash))).result;
+		assertTrue(confirmed.unchanged);
+		assertNull(shared.hash);
+		assertFalse(shared.unchanged);
+	}
+}
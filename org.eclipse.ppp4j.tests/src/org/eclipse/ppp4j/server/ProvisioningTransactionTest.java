@@ -0,0 +1,202 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProvisioningTransactionTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] bytes(String content) {
+		return content.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the names in the directory, so that leftover staging directories
+	 *         show up
+	 */
+	private static String[] list(Path directory) throws IOException {
+		try (Stream<Path> entries = Files.list(directory)) {
+			return entries.map(path -> path.getFileName().toString()).sorted().toArray(String[]::new);
+		}
+	}
+
+	@Test
+	public void testCommitToMissingLocation() throws IOException {
+		Path parent = folder.getRoot().toPath();
+		Path location = parent.resolve("project");
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("Cargo.toml", bytes("[package]"));
+			transaction.write("src/main.rs", bytes("fn main() {}"));
+			assertFalse(Files.exists(location));
+			transaction.commit();
+		}
+		assertEquals("[package]", read(location.resolve("Cargo.toml")));
+		assertEquals("fn main() {}", read(location.resolve("src/main.rs")));
+		assertArrayEquals(new String[] { "project" }, list(parent));
+	}
+
+	@Test
+	public void testCommitCreatesMissingParents() throws IOException {
+		Path location = folder.getRoot().toPath().resolve("a/b/project");
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("index.html", bytes("<html/>"));
+			transaction.commit();
+		}
+		assertEquals("<html/>", read(location.resolve("index.html")));
+	}
+
+	@Test
+	public void testCommitIntoExistingDirectory() throws IOException {
+		Path location = folder.newFolder("project").toPath();
+		Files.createDirectories(location.resolve("src"));
+		Files.write(location.resolve("README"), bytes("kept"));
+		Files.write(location.resolve("src/lib.rs"), bytes("kept"));
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("Cargo.toml", bytes("[package]"));
+			transaction.write("src/main.rs", bytes("fn main() {}"));
+			transaction.commit();
+		}
+		assertArrayEquals(new String[] { "Cargo.toml", "README", "src" }, list(location));
+		assertArrayEquals(new String[] { "lib.rs", "main.rs" }, list(location.resolve("src")));
+		assertEquals("kept", read(location.resolve("src/lib.rs")));
+		assertArrayEquals(new String[] { "project" }, list(folder.getRoot().toPath()));
+	}
+
+	@Test
+	public void testExistingFileConflicts() throws IOException {
+		Path location = folder.newFolder("project").toPath();
+		Files.createDirectories(location.resolve("src"));
+		Files.write(location.resolve("src/main.rs"), bytes("mine"));
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("Cargo.toml", bytes("[package]"));
+			transaction.write("src/main.rs", bytes("fn main() {}"));
+			try {
+				transaction.commit();
+				fail("committed over an existing file");
+			} catch (FileAlreadyExistsException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("main.rs"));
+			}
+		}
+		assertEquals("mine", read(location.resolve("src/main.rs")));
+		assertArrayEquals(new String[] { "src" }, list(location));
+		assertArrayEquals(new String[] { "project" }, list(folder.getRoot().toPath()));
+	}
+
+	@Test
+	public void testFailedWriteRollsBack() throws IOException {
+		Path root = folder.getRoot().toPath();
+		Path location = root.resolve("a/b/project");
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("Cargo.toml", bytes("[package]"));
+			transaction.write("src/main.rs", target -> {
+				throw new IOException("disk full");
+			});
+			try {
+				transaction.commit();
+				fail("committed a failed write");
+			} catch (IOException e) {
+				assertEquals("disk full", e.getMessage());
+			}
+		}
+		assertFalse(Files.exists(location));
+		// the parents created for the project are gone too
+		assertArrayEquals(new String[0], list(root));
+	}
+
+	@Test
+	public void testUncommittedTransactionLeavesNothing() throws IOException {
+		Path location = folder.newFolder("project").toPath();
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("Cargo.toml", bytes("[package]"));
+		}
+		assertArrayEquals(new String[0], list(location));
+		assertArrayEquals(new String[] { "project" }, list(folder.getRoot().toPath()));
+	}
+
+	@Test
+	public void testPathsOutsideTheProjectAreRejected() throws IOException {
+		Path location = folder.getRoot().toPath().resolve("project");
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			for (String path : new String[] { "../escaped", "src/../../escaped", "." }) {
+				try {
+					transaction.write(path, bytes("content"));
+					fail("accepted " + path);
+				} catch (IOException e) {
+					// expected
+				}
+			}
+		}
+		assertFalse(Files.exists(folder.getRoot().toPath().resolve("escaped")));
+	}
+
+	@Test
+	public void testCommittedDirectoryHasDefaultPermissions() throws IOException {
+		assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+		Path parent = folder.getRoot().toPath();
+		// what the umask gives a directory made without the transaction
+		Path plain = Files.createDirectory(parent.resolve("plain"));
+		Set<PosixFilePermission> expected = Files.getPosixFilePermissions(plain);
+		Path location = parent.resolve("project");
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("src/main.rs", bytes("fn main() {}"));
+			transaction.commit();
+		}
+		assertEquals(expected, Files.getPosixFilePermissions(location));
+		assertEquals(expected, Files.getPosixFilePermissions(location.resolve("src")));
+	}
+
+	@Test
+	public void testReadOnlyAndLinkedFilesAreCommitted() throws IOException {
+		Path blob = folder.newFile("blob").toPath();
+		Files.write(blob, bytes("shared"));
+		File readOnly = folder.newFile("read-only");
+		Files.write(readOnly.toPath(), bytes("read only"));
+		Path location = folder.getRoot().toPath().resolve("project");
+		try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location.toFile())) {
+			transaction.write("linked", target -> Files.createLink(target, blob));
+			transaction.write("read-only", target -> {
+				Files.copy(readOnly.toPath(), target);
+				assertTrue(target.toFile().setReadOnly());
+			});
+			transaction.commit();
+		}
+		assertEquals("shared", read(location.resolve("linked")));
+		assertEquals("read only", read(location.resolve("read-only")));
+	}
+}
@@ -0,0 +1,80 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+
+import com.google.gson.Gson;
+
+/**
+ * Client end of a {@link ProvisioningServer} listening on in-memory pipes from
+ * its own thread.
+ */
+class ServerConnection implements Closeable {
+	private static final Gson gson = new Gson();
+	private static final int PIPE_CAPACITY = 1 << 16;
+
+	private final MessageTransport transport;
+	private final Thread serverThread;
+
+	ServerConnection(ProvisioningServer server) {
+		BoundedPipe toServer = new BoundedPipe(PIPE_CAPACITY);
+		BoundedPipe fromServer = new BoundedPipe(PIPE_CAPACITY);
+		MessageTransport serverTransport = new NewlineDelimitedTransport(toServer.getInputStream(),
+				fromServer.getOutputStream());
+		transport = new NewlineDelimitedTransport(fromServer.getInputStream(), toServer.getOutputStream());
+		serverThread = new Thread(() -> server.beginListening(serverTransport), "ppp4j-test-server");
+		serverThread.setDaemon(true);
+		serverThread.start();
+	}
+
+	void send(String id, String method, Object params) throws IOException {
+		transport.write(new RpcRequest(id, "projectProvisioning/" + method, params));
+	}
+
+	/**
+	 * @return the next message of the server, a response or a notification
+	 */
+	Object read(Function<String, Type> paramsTypes, Function<String, Type> resultTypes) throws IOException {
+		return transport.read(reader -> MessageDecoder.readMessage(gson, reader, paramsTypes, resultTypes));
+	}
+
+	/**
+	 * @return the next response of the server, skipping notifications
+	 */
+	RpcResponse readResponse(Function<String, Type> resultTypes) throws IOException {
+		while (true) {
+			Object message = read(method -> null, resultTypes);
+			if (message == null || message instanceof RpcResponse) {
+				return (RpcResponse) message;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		transport.close();
+		try {
+			serverThread.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
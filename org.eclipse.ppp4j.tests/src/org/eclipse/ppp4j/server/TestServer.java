@@ -0,0 +1,79 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.util.function.Function;
+
+import org.eclipse.ppp4j.messages.ErroneousParameter;
+import org.eclipse.ppp4j.messages.Initialize;
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.PreviewResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.ProvisionResult;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.messages.ValidationResult;
+
+/**
+ * Server whose endpoints answer at once with empty results, unless a test
+ * replaces them.
+ */
+class TestServer extends ProvisioningServer {
+	private final int maxConcurrentRequests;
+	volatile Function<Initialize, InitializeResult> initializer = initialize -> new InitializeResult();
+	volatile Function<ProvisioningParameters, ValidationResult> validator = parameters -> new ValidationResult(null,
+			new ErroneousParameter[0]);
+	volatile Function<ProvisioningParameters, ProvisionInstructionsResult> instructions = parameters -> new ProvisionInstructionsResult();
+	volatile Function<ProvisioningParameters, ProvisionResult> provisioner = parameters -> new ProvisionResult(null,
+			new ErroneousParameter[0], parameters.location, new String[0]);
+
+	TestServer(int maxConcurrentRequests) {
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	@Override
+	protected int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	@Override
+	public RpcResponse generateResponseFromCustomEndpoint(RpcRequest request) {
+		return null;
+	}
+
+	@Override
+	public InitializeResult initialize(Initialize initialize) {
+		return initializer.apply(initialize);
+	}
+
+	@Override
+	public ValidationResult validation(ProvisioningParameters parameters) {
+		return validator.apply(parameters);
+	}
+
+	@Override
+	public PreviewResult preview(ProvisioningParameters parameters) {
+		return new PreviewResult(null, new ErroneousParameter[0], parameters.name);
+	}
+
+	@Override
+	public ProvisionResult provision(ProvisioningParameters parameters) {
+		return provisioner.apply(parameters);
+	}
+
+	@Override
+	public ProvisionInstructionsResult provisionInstructions(ProvisioningParameters parameters) {
+		return instructions.apply(parameters);
+	}
+}
@@ -0,0 +1,96 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.client;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.ppp4j.messages.Progress;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.server.ProvisioningServer;
+
+/**
+ * Calls a {@link ProvisioningServer} running in the same JVM without
+ * serializing messages. Requests are handled on an executor sized to the
+ * concurrency limit of the server, and their parameters and results are copied
+ * with {@link MessageCopies} so that the client and the server share no state.
+ */
+public class DirectDispatcher {
+	private final ProvisioningServer server;
+	private final PendingRequestTable pendingRequests;
+	private final String serverName;
+	private final ExecutorService executor;
+
+	public DirectDispatcher(ProvisioningServer server, PendingRequestTable pendingRequests, String serverName) {
+		this.server = server;
+		this.pendingRequests = pendingRequests;
+		this.serverName = serverName;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(server.getConcurrencyLimit(), runnable -> {
+			Thread thread = new Thread(runnable,
+					"ppp4j-direct-" + serverName + "-" + threadCount.incrementAndGet()); //$NON-NLS-1$ //$NON-NLS-2$
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Hands a copy of the request to the server from the executor and completes
+	 * the pending request with a copy of the result.
+	 */
+	public void dispatch(RpcRequest request, PendingRequest<?> pendingRequest) {
+		try {
+			executor.execute(() -> {
+				if (pendingRequest.getFuture().isDone()) {
+					return;
+				}
+				pendingRequest.written(-1);
+				try {
+					RpcResponse response = server.handleRequest(
+							new RpcRequest(request.id, request.method, MessageCopies.copy(request.params)),
+							progress -> pendingRequests.notifyProgress(new Progress(progress)));
+					pendingRequest.received(-1);
+					if (response == null) {
+						pendingRequest.getFuture().completeExceptionally(
+								new IOException(serverName + " did not answer " + request.method)); //$NON-NLS-1$
+					} else {
+						pendingRequest.complete(MessageCopies.copy(response.result));
+					}
+				} catch (RuntimeException e) {
+					pendingRequest.getFuture().completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			pendingRequest.getFuture()
+					.completeExceptionally(new IOException("Connection to " + serverName + " closed", e)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Tells the server that the response to the request is no longer awaited.
+	 */
+	public void cancel(String id) {
+		server.cancelRequest(id);
+	}
+
+	/**
+	 * Interrupts the requests being handled and rejects new ones.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,107 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import org.eclipse.ppp4j.messages.InitializeResult;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Stores the last {@link InitializeResult} received from each server so a
+ * wizard can be shown from it right away while the server confirms, through
+ * the result hash, that it is still current.
+ */
+public class InitializeResultCache {
+	private final File directory;
+	private final BiConsumer<String, Throwable> warnings;
+	private final Gson gson = new Gson();
+
+	/**
+	 * @param warnings called with a message and its cause when a result cannot
+	 *                 be read or stored
+	 */
+	public InitializeResultCache(File directory, BiConsumer<String, Throwable> warnings) {
+		this.directory = directory;
+		this.warnings = warnings;
+	}
+
+	/**
+	 * @param serverId identifies the server, stable across sessions
+	 * @return the stored result, or <code>null</code> if there is no usable one
+	 */
+	public InitializeResult load(String serverId) {
+		Path file = getFile(serverId);
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			InitializeResult result = gson.fromJson(reader, InitializeResult.class);
+			return result == null || result.hash == null || result.unchanged ? null : result;
+		} catch (IOException | JsonParseException e) {
+			warnings.accept("Ignoring unreadable cached initialization of " + serverId, e); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the result, unless the server did not report a hash for it.
+	 */
+	public void save(String serverId, InitializeResult result) {
+		if (result == null || result.hash == null || result.unchanged) {
+			return;
+		}
+		Path file = getFile(serverId);
+		try {
+			Files.createDirectories(file.getParent());
+			Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp"); //$NON-NLS-1$
+			try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+				gson.toJson(result, writer);
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			warnings.accept("Unable to cache the initialization of " + serverId, e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Stores the result the server answered with, unless it is the cached one.
+	 *
+	 * @param cachedResult the result loaded before asking the server, or
+	 *                     <code>null</code>
+	 * @return the result to use in place of the cached one, <code>null</code>
+	 *         when the cached one is still current
+	 */
+	public InitializeResult update(String serverId, InitializeResult cachedResult, InitializeResult result) {
+		if (cachedResult != null && result != null && Objects.equals(cachedResult.hash, result.hash)) {
+			return null;
+		}
+		save(serverId, result);
+		return result;
+	}
+
+	private Path getFile(String serverId) {
+		return new File(directory, serverId.replaceAll("[^\\w.-]", "_") + ".json").toPath(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
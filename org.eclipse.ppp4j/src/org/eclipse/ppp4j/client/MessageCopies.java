@@ -0,0 +1,68 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.client;
+
+import org.eclipse.ppp4j.messages.ErroneousParameter;
+import org.eclipse.ppp4j.messages.Initialize;
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.PreviewResult;
+import org.eclipse.ppp4j.messages.ProvisionBatchResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.ProvisionResult;
+import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.ValidationResult;
+
+import com.google.gson.Gson;
+
+/**
+ * Deep copies of the messages exchanged with a server called directly.
+ */
+public final class MessageCopies {
+	private static final Gson gson = new Gson();
+
+	private MessageCopies() {
+	}
+
+	public static Object copy(Object message) {
+		if (message == null || message instanceof String || message instanceof Number
+				|| message instanceof Boolean) {
+			return message;
+		} else if (message instanceof ProvisioningParameters) {
+			return new ProvisioningParameters((ProvisioningParameters) message);
+		} else if (message instanceof Initialize) {
+			return new Initialize((Initialize) message);
+		} else if (message instanceof InitializeResult) {
+			return new InitializeResult((InitializeResult) message);
+		} else if (message instanceof ValidationResult) {
+			return new ValidationResult((ValidationResult) message);
+		} else if (message instanceof PreviewResult) {
+			return new PreviewResult((PreviewResult) message);
+		} else if (message instanceof ProvisionResult) {
+			return new ProvisionResult((ProvisionResult) message);
+		} else if (message instanceof ProvisioningParameters[]) {
+			ProvisioningParameters[] parameters = ((ProvisioningParameters[]) message).clone();
+			for (int i = 0; i < parameters.length; i++) {
+				parameters[i] = parameters[i] == null ? null : new ProvisioningParameters(parameters[i]);
+			}
+			return parameters;
+		} else if (message instanceof ProvisionBatchResult) {
+			return new ProvisionBatchResult((ProvisionBatchResult) message);
+		} else if (message instanceof ProvisionInstructionsResult) {
+			return new ProvisionInstructionsResult((ProvisionInstructionsResult) message);
+		} else if (message instanceof ErroneousParameter) {
+			return new ErroneousParameter((ErroneousParameter) message);
+		}
+		// messages of custom endpoints
+		return gson.fromJson(gson.toJsonTree(message), message.getClass());
+	}
+}
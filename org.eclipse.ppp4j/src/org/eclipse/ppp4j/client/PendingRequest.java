@@ -0,0 +1,124 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import org.eclipse.ppp4j.messages.InstructionChunk;
+import org.eclipse.ppp4j.messages.Progress;
+
+/**
+ * A request sent to the server whose response has not been received yet, see
+ * {@link PendingRequestTable}.
+ */
+public final class PendingRequest<T> {
+	private final String id;
+	private final String method;
+	private final Class<T> resultType;
+	private final CompletableFuture<T> future = new CompletableFuture<>();
+	private final long sentNanos = System.nanoTime();
+	private final Consumer<Progress> progressListener;
+	private final Consumer<InstructionChunk> chunkListener;
+	// set by the writer and reader threads, read once the future is done
+	private volatile long writtenNanos = -1;
+	private volatile long receivedNanos = -1;
+	private volatile long bytesOut = -1;
+	private volatile long bytesIn = -1;
+
+	PendingRequest(String id, String method, Class<T> resultType, Consumer<Progress> progressListener,
+			Consumer<InstructionChunk> chunkListener) {
+		this.id = id;
+		this.method = method;
+		this.resultType = resultType;
+		this.progressListener = progressListener;
+		this.chunkListener = chunkListener;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the method without the prefix of the protocol
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	public Class<T> getResultType() {
+		return resultType;
+	}
+
+	/**
+	 * @return completes with the result of the response, or exceptionally when
+	 *         the server failed to answer or the connection closed
+	 */
+	public CompletableFuture<T> getFuture() {
+		return future;
+	}
+
+	Consumer<Progress> getProgressListener() {
+		return progressListener;
+	}
+
+	Consumer<InstructionChunk> getChunkListener() {
+		return chunkListener;
+	}
+
+	/**
+	 * Records that the request was written, -1 bytes when it was not serialized.
+	 */
+	public void written(long bytes) {
+		bytesOut = bytes;
+		writtenNanos = System.nanoTime();
+	}
+
+	/**
+	 * Records that the response was read, -1 bytes when it was not serialized.
+	 */
+	public void received(long bytes) {
+		bytesIn = bytes;
+		receivedNanos = System.nanoTime();
+	}
+
+	public void complete(Object result) {
+		future.complete(resultType.cast(result));
+	}
+
+	public long getSentNanos() {
+		return sentNanos;
+	}
+
+	/**
+	 * @return when the request was written, -1 if it was not
+	 */
+	public long getWrittenNanos() {
+		return writtenNanos;
+	}
+
+	/**
+	 * @return when the response was read, -1 if it was not
+	 */
+	public long getReceivedNanos() {
+		return receivedNanos;
+	}
+
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	public long getBytesIn() {
+		return bytesIn;
+	}
+}
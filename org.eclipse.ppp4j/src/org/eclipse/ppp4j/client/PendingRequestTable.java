@@ -0,0 +1,226 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.client;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.eclipse.ppp4j.messages.InstructionChunk;
+import org.eclipse.ppp4j.messages.Progress;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.server.MessageDecoder;
+import org.eclipse.ppp4j.server.MessageTransport;
+import org.eclipse.ppp4j.server.ProvisioningServer;
+
+import com.google.gson.Gson;
+
+/**
+ * Requests a client sent on a connection and has not received the response
+ * of yet. Each request gets an id of its own, so that responses, which may
+ * arrive in any order, and notifications are matched to their request.
+ *
+ * The table is safe to use from the threads writing requests and the one
+ * reading messages.
+ */
+public class PendingRequestTable {
+	private static final String METHOD_PREFIX = "projectProvisioning/"; //$NON-NLS-1$
+	private static final Gson gson = new Gson();
+
+	private final Map<Integer, PendingRequest<?>> requests = new ConcurrentHashMap<>();
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final String serverName;
+	private final Consumer<RuntimeException> listenerErrors;
+
+	/**
+	 * @param serverName     name of the server in error messages
+	 * @param listenerErrors called with what progress and chunk listeners throw
+	 */
+	public PendingRequestTable(String serverName, Consumer<RuntimeException> listenerErrors) {
+		this.serverName = serverName;
+		this.listenerErrors = listenerErrors;
+	}
+
+	/**
+	 * Registers a request under a new id, before it is sent so that its
+	 * response cannot arrive first.
+	 *
+	 * @param method the method without the prefix of the protocol
+	 */
+	public <T> PendingRequest<T> add(String method, Class<T> resultType, Consumer<Progress> progressListener,
+			Consumer<InstructionChunk> chunkListener) {
+		int id = nextId.getAndIncrement();
+		PendingRequest<T> request = new PendingRequest<>(String.valueOf(id), method, resultType, progressListener,
+				chunkListener);
+		requests.put(id, request);
+		return request;
+	}
+
+	/**
+	 * @return the request to send for the pending request
+	 */
+	public RpcRequest toRequest(PendingRequest<?> request, Object params) {
+		return new RpcRequest(request.getId(), METHOD_PREFIX + request.getMethod(), params);
+	}
+
+	/**
+	 * Forgets the request, whose response is ignored if it still arrives.
+	 */
+	public void remove(PendingRequest<?> request) {
+		Integer id = parseId(request.getId());
+		if (id != null) {
+			requests.remove(id, request);
+		}
+	}
+
+	/**
+	 * @return the pending request with the id, <code>null</code> if there is none
+	 */
+	public PendingRequest<?> get(String id) {
+		Integer messageId = parseId(id);
+		return messageId == null ? null : requests.get(messageId);
+	}
+
+	public int size() {
+		return requests.size();
+	}
+
+	/**
+	 * @return the type of the result of the pending request with the id, for
+	 *         {@link MessageDecoder}
+	 */
+	public Type getResultType(String id) {
+		PendingRequest<?> request = get(id);
+		return request == null ? null : request.getResultType();
+	}
+
+	/**
+	 * @return the type of the parameters of a notification the server sends,
+	 *         for {@link MessageDecoder}
+	 */
+	public Type getNotificationParamsType(String method) {
+		if ((METHOD_PREFIX + ProvisioningServer.PROGRESS_METHOD).equals(method)) {
+			return Progress.class;
+		}
+		if ((METHOD_PREFIX + ProvisioningServer.INSTRUCTION_CHUNK_METHOD).equals(method)) {
+			return InstructionChunk.class;
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the next message of the server and hands it to its pending request:
+	 * a response completes it, a notification goes to its listeners.
+	 *
+	 * @return the message, <code>null</code> once the server closed its output
+	 * @throws org.eclipse.ppp4j.server.MalformedMessageException when the
+	 *                                                            message is not
+	 *                                                            understood, the
+	 *                                                            next one can
+	 *                                                            still be read
+	 */
+	public Object readMessage(MessageTransport transport) throws IOException {
+		long bytesRead = transport.getBytesRead();
+		Object message = transport.read(reader -> MessageDecoder.readMessage(gson, reader,
+				this::getNotificationParamsType, this::getResultType));
+		if (message instanceof RpcRequest) {
+			handleNotification((RpcRequest) message);
+		} else if (message != null) {
+			complete((RpcResponse) message, transport.getBytesRead() - bytesRead);
+		}
+		return message;
+	}
+
+	/**
+	 * Completes the pending request the response answers, with its result or
+	 * exceptionally with its error.
+	 *
+	 * @param bytes size of the response, -1 when it was not serialized
+	 */
+	public void complete(RpcResponse response, long bytes) {
+		Integer id = parseId(response.id);
+		PendingRequest<?> request = id == null ? null : requests.remove(id);
+		if (request == null) {
+			return;
+		}
+		request.received(bytes);
+		if (response.error != null) {
+			request.getFuture().completeExceptionally(new IOException(
+					serverName + " failed to answer " + request.getMethod() + ": " + response.error.message)); //$NON-NLS-1$ //$NON-NLS-2$
+		} else {
+			request.complete(response.result);
+		}
+	}
+
+	public void handleNotification(RpcRequest notification) {
+		if ((METHOD_PREFIX + ProvisioningServer.PROGRESS_METHOD).equals(notification.method)
+				&& notification.params instanceof Progress) {
+			notifyProgress((Progress) notification.params);
+		} else if ((METHOD_PREFIX + ProvisioningServer.INSTRUCTION_CHUNK_METHOD).equals(notification.method)
+				&& notification.params instanceof InstructionChunk) {
+			notifyChunk((InstructionChunk) notification.params);
+		}
+	}
+
+	/**
+	 * Passes the progress to the listener of its request, if still pending.
+	 */
+	public void notifyProgress(Progress progress) {
+		PendingRequest<?> request = get(progress.id);
+		notify(request, request == null ? null : request.getProgressListener(), progress);
+	}
+
+	/**
+	 * Passes the chunk to the listener of its request, if still pending.
+	 */
+	public void notifyChunk(InstructionChunk chunk) {
+		PendingRequest<?> request = get(chunk.id);
+		notify(request, request == null ? null : request.getChunkListener(), chunk);
+	}
+
+	private <N> void notify(PendingRequest<?> request, Consumer<N> listener, N notification) {
+		if (listener == null || request.getFuture().isDone()) {
+			return;
+		}
+		try {
+			listener.accept(notification);
+		} catch (RuntimeException e) {
+			listenerErrors.accept(e);
+		}
+	}
+
+	/**
+	 * Completes every pending request exceptionally, once the connection is
+	 * closed.
+	 */
+	public void failAll(Throwable cause) {
+		for (Integer id : requests.keySet()) {
+			PendingRequest<?> request = requests.remove(id);
+			if (request != null) {
+				request.getFuture().completeExceptionally(cause);
+			}
+		}
+	}
+
+	private static Integer parseId(String id) {
+		try {
+			return Integer.valueOf(id);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.messages;
+
+/**
+ * Parameters of the <code>$/cancelRequest</code> notification a client sends
+ * when it no longer needs the response to a request.
+ */
+public class CancelParams {
+	/**
+	 * Id of the request to cancel.
+	 */
+	public String id;
+
+	public CancelParams() {
+	}
+
+	public CancelParams(String id) {
+		this.id = id;
+	}
+}
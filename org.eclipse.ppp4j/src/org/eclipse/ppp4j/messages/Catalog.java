@@ -0,0 +1,149 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.messages;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Read-only index over the templates, components and versions of an
+ * {@link InitializeResult}, built once so lookups by id do not scan the
+ * message arrays.
+ *
+ * The catalog reflects the arrays as they were when it was built, the indexed
+ * messages must not be modified afterwards. Entries that are <code>null</code>
+ * or have no id are left out.
+ */
+public final class Catalog {
+	private final Map<String, Template> templates;
+	private final Map<String, ComponentVersion> componentVersions;
+	private final Map<String, Map<String, ComponentVersion>> templateComponentVersions;
+	private final Map<ComponentVersion, Map<String, Version>> versions;
+
+	public Catalog(InitializeResult initializeResult) {
+		this(initializeResult.templates, initializeResult.componentVersions);
+	}
+
+	public Catalog(Template[] templates, ComponentVersion[] componentVersions) {
+		Map<ComponentVersion, Map<String, Version>> versions = new IdentityHashMap<>();
+		this.componentVersions = indexComponentVersions(componentVersions, versions);
+		Map<String, Template> templateIndex = new HashMap<>();
+		Map<String, Map<String, ComponentVersion>> templateComponentVersions = new HashMap<>();
+		if (templates != null) {
+			for (Template template : templates) {
+				if (template == null || template.id == null || templateIndex.containsKey(template.id)) {
+					continue;
+				}
+				templateIndex.put(template.id, template);
+				templateComponentVersions.put(template.id,
+						indexComponentVersions(template.componentVersions, versions));
+			}
+		}
+		this.templates = Collections.unmodifiableMap(templateIndex);
+		this.templateComponentVersions = Collections.unmodifiableMap(templateComponentVersions);
+		this.versions = Collections.unmodifiableMap(versions);
+	}
+
+	private static Map<String, ComponentVersion> indexComponentVersions(ComponentVersion[] componentVersions,
+			Map<ComponentVersion, Map<String, Version>> versions) {
+		if (componentVersions == null || componentVersions.length == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, ComponentVersion> index = new HashMap<>();
+		for (ComponentVersion componentVersion : componentVersions) {
+			if (componentVersion == null || componentVersion.id == null || index.containsKey(componentVersion.id)) {
+				continue;
+			}
+			index.put(componentVersion.id, componentVersion);
+			versions.computeIfAbsent(componentVersion, Catalog::indexVersions);
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+	private static Map<String, Version> indexVersions(ComponentVersion componentVersion) {
+		if (componentVersion.versions == null || componentVersion.versions.length == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, Version> index = new HashMap<>();
+		for (Version version : componentVersion.versions) {
+			if (version != null && version.id != null) {
+				index.putIfAbsent(version.id, version);
+			}
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+	public Template getTemplate(String templateId) {
+		return templateId == null ? null : templates.get(templateId);
+	}
+
+	/**
+	 * @return the component shared by all templates with the given id
+	 */
+	public ComponentVersion getComponentVersion(String componentId) {
+		return componentId == null ? null : componentVersions.get(componentId);
+	}
+
+	/**
+	 * @return the component with the given id specific to the template
+	 */
+	public ComponentVersion getComponentVersion(String templateId, String componentId) {
+		if (templateId == null || componentId == null) {
+			return null;
+		}
+		Map<String, ComponentVersion> index = templateComponentVersions.get(templateId);
+		return index == null ? null : index.get(componentId);
+	}
+
+	/**
+	 * @param componentVersion a component indexed by this catalog
+	 */
+	public Version getVersion(ComponentVersion componentVersion, String versionId) {
+		if (componentVersion == null || versionId == null) {
+			return null;
+		}
+		Map<String, Version> index = versions.get(componentVersion);
+		return index == null ? null : index.get(versionId);
+	}
+
+	/**
+	 * @return the selected version of the component shared by all templates
+	 */
+	public Version getSelectedVersion(ProvisioningParameters parameters, String componentId) {
+		ComponentVersionSelection selection = parameters.getComponentVersionSelectionById(componentId);
+		return selection == null ? null : getVersion(getComponentVersion(componentId), selection.versionId);
+	}
+
+	/**
+	 * @return the selected version of the component specific to the selected
+	 *         template
+	 */
+	public Version getSelectedTemplateVersion(ProvisioningParameters parameters, String componentId) {
+		TemplateSelection templateSelection = parameters.templateSelection;
+		if (templateSelection == null) {
+			return null;
+		}
+		return getVersion(getComponentVersion(templateSelection.id, componentId),
+				templateSelection.getComponentVersion(componentId));
+	}
+
+	public Map<String, Template> getTemplates() {
+		return templates;
+	}
+
+	public Map<String, ComponentVersion> getComponentVersions() {
+		return componentVersions;
+	}
+}
@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.ppp4j.messages;
 
+import java.util.Objects;
+
 public class ComponentVersion {
 	public String id;
 	public String title;
@@ -28,9 +30,30 @@ public class ComponentVersion {
 		this.versions = versions;
 	}
 
+	/**
+	 * Creates a deep copy of the given component.
+	 */
+	public ComponentVersion(ComponentVersion other) {
+		this(other.id, other.title, other.caption, Version.copyOf(other.versions));
+	}
+
+	static ComponentVersion[] copyOf(ComponentVersion[] componentVersions) {
+		if (componentVersions == null) {
+			return null;
+		}
+		ComponentVersion[] copy = new ComponentVersion[componentVersions.length];
+		for (int i = 0; i < componentVersions.length; i++) {
+			copy[i] = componentVersions[i] == null ? null : new ComponentVersion(componentVersions[i]);
+		}
+		return copy;
+	}
+
 	public Version getVersionById(String id) {
+		if (versions == null) {
+			return null;
+		}
 		for (Version version : versions) {
-			if (version.id.equals(id)) {
+			if (version != null && Objects.equals(version.id, id)) {
 				return version;
 			}
 		}
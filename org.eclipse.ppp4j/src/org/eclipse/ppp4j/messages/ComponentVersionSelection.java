@@ -24,4 +24,19 @@ public class ComponentVersionSelection {
 		this.versionId = versionId;
 	}
 
+	public ComponentVersionSelection(ComponentVersionSelection other) {
+		this(other.id, other.versionId);
+	}
+
+	static ComponentVersionSelection[] copyOf(ComponentVersionSelection[] selections) {
+		if (selections == null) {
+			return null;
+		}
+		ComponentVersionSelection[] copy = new ComponentVersionSelection[selections.length];
+		for (int i = 0; i < selections.length; i++) {
+			copy[i] = selections[i] == null ? null : new ComponentVersionSelection(selections[i]);
+		}
+		return copy;
+	}
+
 }
@@ -25,4 +25,19 @@ public class ErroneousParameter {
 		this.message = message;
 		this.componentVersionId = componentVersionId;
 	}
+
+	public ErroneousParameter(ErroneousParameter other) {
+		this(other.parameterType, other.message, other.componentVersionId);
+	}
+
+	static ErroneousParameter[] copyOf(ErroneousParameter[] erroneousParameters) {
+		if (erroneousParameters == null) {
+			return null;
+		}
+		ErroneousParameter[] copy = new ErroneousParameter[erroneousParameters.length];
+		for (int i = 0; i < erroneousParameters.length; i++) {
+			copy[i] = erroneousParameters[i] == null ? null : new ErroneousParameter(erroneousParameters[i]);
+		}
+		return copy;
+	}
 }
@@ -15,6 +15,16 @@ package org.eclipse.ppp4j.messages;
 public class Initialize {
 	public boolean supportMarkdown;
 	public boolean allowFileCreation;
+	/**
+	 * Hash of the {@link InitializeResult} the client already has, if any. When
+	 * it matches, the server answers with {@link InitializeResult#unchanged}.
+	 */
+	public String cachedResultHash;
+	/**
+	 * Set by clients that read the notifications the server sends between its
+	 * responses, such as <code>$/progress</code>. Other clients get none.
+	 */
+	public boolean notificationsSupported;
 
 	public Initialize() {
 	}
@@ -23,4 +33,14 @@ public class Initialize {
 		this.supportMarkdown = supportMarkdown;
 		this.allowFileCreation = allowFileCreation;
 	}
+
+	public Initialize(boolean supportMarkdown, boolean allowFileCreation, String cachedResultHash) {
+		this(supportMarkdown, allowFileCreation);
+		this.cachedResultHash = cachedResultHash;
+	}
+
+	public Initialize(Initialize other) {
+		this(other.supportMarkdown, other.allowFileCreation, other.cachedResultHash);
+		this.notificationsSupported = other.notificationsSupported;
+	}
 }
@@ -16,9 +16,23 @@ public class InitializeResult {
 	public boolean versionRequired;
 	public boolean validationSupported;
 	public boolean previewSupported;
+	/**
+	 * Whether the server answers provisionInstructions, letting the client write
+	 * the project files itself.
+	 */
+	public boolean provisionInstructionsSupported;
 	public Template[] templates;
 	public ComponentVersion[] componentVersions;
 	public ProvisioningParameters defaultProvisioningParameters;
+	/**
+	 * Hash of the content of this result, set by the server.
+	 */
+	public String hash;
+	/**
+	 * Set when the content matches {@link Initialize#cachedResultHash}, only the
+	 * hash is sent then.
+	 */
+	public boolean unchanged;
 
 	public InitializeResult() {
 	}
@@ -33,4 +47,17 @@ public class InitializeResult {
 		this.componentVersions = componentVersions;
 		this.defaultProvisioningParameters = defaultProvisioningParameters;
 	}
+
+	/**
+	 * Creates a deep copy of the given result.
+	 */
+	public InitializeResult(InitializeResult other) {
+		this(other.versionRequired, other.validationSupported, other.previewSupported,
+				Template.copyOf(other.templates), ComponentVersion.copyOf(other.componentVersions),
+				other.defaultProvisioningParameters == null ? null
+						: new ProvisioningParameters(other.defaultProvisioningParameters));
+		this.provisionInstructionsSupported = other.provisionInstructionsSupported;
+		this.hash = other.hash;
+		this.unchanged = other.unchanged;
+	}
 }
@@ -12,9 +12,38 @@
  *******************************************************************************/
 package org.eclipse.ppp4j.messages;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 public class Instruction {
+	/**
+	 * Value of {@link #encoding} when {@link #content} holds base64 encoded
+	 * bytes.
+	 */
+	public static final String BASE64 = "base64";
+
 	public String path;
 	public String content;
+	/**
+	 * How {@link #content} is encoded, <code>null</code> for text.
+	 */
+	public String encoding;
+	/**
+	 * Set when the content is not in the instruction but sent in
+	 * {@link InstructionChunk} notifications before the result.
+	 */
+	public boolean chunked;
+	/**
+	 * Size in bytes and SHA-256 hash in hexadecimal of a chunked content, set
+	 * once all of its chunks were sent.
+	 */
+	public long size;
+	public String sha256;
+	/**
+	 * Where the server reads a chunked content from. Never sent, clients calling
+	 * the server directly read it themselves.
+	 */
+	public transient ContentSource source;
 
 	public Instruction() {
 	}
@@ -24,4 +53,38 @@ public class Instruction {
 		this.content = content;
 	}
 
+	public Instruction(Instruction other) {
+		this(other.path, other.content);
+		this.encoding = other.encoding;
+		this.chunked = other.chunked;
+		this.size = other.size;
+		this.sha256 = other.sha256;
+		this.source = other.source;
+	}
+
+	/**
+	 * Creates an instruction whose content is sent in chunks, so that neither
+	 * side holds all of it in memory. Binary content is safe.
+	 */
+	public static Instruction chunked(String path, ContentSource source) {
+		Instruction instruction = new Instruction(path, null);
+		instruction.chunked = true;
+		instruction.source = source;
+		return instruction;
+	}
+
+	static Instruction[] copyOf(Instruction[] instructions) {
+		if (instructions == null) {
+			return null;
+		}
+		Instruction[] copy = new Instruction[instructions.length];
+		for (int i = 0; i < instructions.length; i++) {
+			copy[i] = instructions[i] == null ? null : new Instruction(instructions[i]);
+		}
+		return copy;
+	}
+
+	public interface ContentSource {
+		InputStream open() throws IOException;
+	}
 }
@@ -0,0 +1,46 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.messages;
+
+/**
+ * Parameters of the <code>$/instructionChunk</code> notification carrying a
+ * part of the content of a chunked {@link Instruction}. The chunks of a file
+ * are sent in order.
+ */
+public class InstructionChunk {
+	/**
+	 * Id of the provisionInstructions request.
+	 */
+	public String id;
+	public String path;
+	public long offset;
+	/**
+	 * The bytes of the chunk, base64 encoded.
+	 */
+	public String data;
+	/**
+	 * Set on the last chunk of the file.
+	 */
+	public boolean last;
+
+	public InstructionChunk() {
+	}
+
+	public InstructionChunk(String id, String path, long offset, String data, boolean last) {
+		this.id = id;
+		this.path = path;
+		this.offset = offset;
+		this.data = data;
+		this.last = last;
+	}
+}
@@ -25,4 +25,8 @@ public class PreviewResult {
 		this.erroneousParameters = erroneousParameters;
 		this.message = message;
 	}
+
+	public PreviewResult(PreviewResult other) {
+		this(other.errorMessage, ErroneousParameter.copyOf(other.erroneousParameters), other.message);
+	}
 }
@@ -0,0 +1,52 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.messages;
+
+/**
+ * Parameters of the <code>$/progress</code> notification a server sends while
+ * it works on a request.
+ */
+public class Progress {
+	/**
+	 * Id of the request the progress is about.
+	 */
+	public String id;
+	public String message;
+	public int worked;
+	/**
+	 * Amount of work once the request is done, 0 or less when unknown.
+	 */
+	public int total;
+	/**
+	 * When provisioning a batch, the index of the project that was just
+	 * provisioned and its result.
+	 */
+	public Integer index;
+	public ProvisionResult result;
+
+	public Progress() {
+	}
+
+	public Progress(String id, String message, int worked, int total) {
+		this.id = id;
+		this.message = message;
+		this.worked = worked;
+		this.total = total;
+	}
+
+	public Progress(Progress other) {
+		this(other.id, other.message, other.worked, other.total);
+		this.index = other.index;
+		this.result = other.result == null ? null : new ProvisionResult(other.result);
+	}
+}
@@ -0,0 +1,41 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.messages;
+
+/**
+ * Result of provisioning several projects in one request. Nothing is
+ * provisioned when one of the projects is invalid.
+ */
+public class ProvisionBatchResult {
+	/**
+	 * Set when no project was provisioned because some were invalid.
+	 */
+	public String errorMessage;
+	/**
+	 * One result per project, in the order of the parameters. The location of a
+	 * result is <code>null</code> when its project was not provisioned.
+	 */
+	public ProvisionResult[] results;
+
+	public ProvisionBatchResult() {
+	}
+
+	public ProvisionBatchResult(String errorMessage, ProvisionResult[] results) {
+		this.errorMessage = errorMessage;
+		this.results = results;
+	}
+
+	public ProvisionBatchResult(ProvisionBatchResult other) {
+		this(other.errorMessage, ProvisionResult.copyOf(other.results));
+	}
+}
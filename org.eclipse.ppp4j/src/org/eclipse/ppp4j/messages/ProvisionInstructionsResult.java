@@ -30,4 +30,12 @@ public class ProvisionInstructionsResult {
 		this.newFiles = newFiles;
 		this.openFiles = openFiles;
 	}
+
+	/**
+	 * Creates a deep copy of the given result.
+	 */
+	public ProvisionInstructionsResult(ProvisionInstructionsResult other) {
+		this(other.errorMessage, ErroneousParameter.copyOf(other.erroneousParameters), other.name,
+				Instruction.copyOf(other.newFiles), other.openFiles == null ? null : other.openFiles.clone());
+	}
 }
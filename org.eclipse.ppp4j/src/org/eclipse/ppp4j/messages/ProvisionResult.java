@@ -28,4 +28,20 @@ public class ProvisionResult {
 		this.location = location;
 		this.openFiles = openFiles;
 	}
+
+	public ProvisionResult(ProvisionResult other) {
+		this(other.errorMessage, ErroneousParameter.copyOf(other.erroneousParameters), other.location,
+				other.openFiles == null ? null : other.openFiles.clone());
+	}
+
+	static ProvisionResult[] copyOf(ProvisionResult[] results) {
+		if (results == null) {
+			return null;
+		}
+		ProvisionResult[] copy = new ProvisionResult[results.length];
+		for (int i = 0; i < results.length; i++) {
+			copy[i] = results[i] == null ? null : new ProvisionResult(results[i]);
+		}
+		return copy;
+	}
 }
@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.ppp4j.messages;
 
+import java.util.Objects;
+
 public class ProvisioningParameters {
 	public String name;
 	public String location;
@@ -31,9 +33,21 @@ public class ProvisioningParameters {
 		this.componentVersionSelections = componentVersionSelections;
 	}
 
+	/**
+	 * Creates a deep copy of the given parameters.
+	 */
+	public ProvisioningParameters(ProvisioningParameters other) {
+		this(other.name, other.location, other.version,
+				other.templateSelection == null ? null : new TemplateSelection(other.templateSelection),
+				ComponentVersionSelection.copyOf(other.componentVersionSelections));
+	}
+
 	public ComponentVersionSelection getComponentVersionSelectionById(String id) {
+		if (componentVersionSelections == null) {
+			return null;
+		}
 		for (ComponentVersionSelection componentVersionSelection : componentVersionSelections) {
-			if (componentVersionSelection.id.equals(id)) {
+			if (componentVersionSelection != null && Objects.equals(componentVersionSelection.id, id)) {
 				return componentVersionSelection;
 			}
 		}
@@ -0,0 +1,34 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.messages;
+
+/**
+ * Error of a {@link RpcResponse} to a request the server failed to handle.
+ */
+public class ResponseError {
+	/**
+	 * Code of an error raised while the server handled the request.
+	 */
+	public static final int INTERNAL_ERROR = -32603;
+
+	public int code;
+	public String message;
+
+	public ResponseError() {
+	}
+
+	public ResponseError(int code, String message) {
+		this.code = code;
+		this.message = message;
+	}
+}
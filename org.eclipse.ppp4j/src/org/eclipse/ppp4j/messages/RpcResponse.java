@@ -16,10 +16,19 @@ public class RpcResponse {
 	final public String jsonrcp = "2.0";
 	public String id;
 	public Object result;
+	/**
+	 * Set instead of {@link #result} when the request could not be handled.
+	 */
+	public ResponseError error;
 
 	public RpcResponse(String id, Object result) {
 		this.id = id;
 		this.result = result;
 	}
 
+	public RpcResponse(String id, ResponseError error) {
+		this.id = id;
+		this.error = error;
+	}
+
 }
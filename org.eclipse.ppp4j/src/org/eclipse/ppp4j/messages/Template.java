@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.ppp4j.messages;
 
+import java.util.Objects;
+
 public class Template {
 	public String id;
 	public String title;
@@ -28,9 +30,30 @@ public class Template {
 		this.componentVersions = componentVersions;
 	}
 
+	/**
+	 * Creates a deep copy of the given template.
+	 */
+	public Template(Template other) {
+		this(other.id, other.title, other.caption, ComponentVersion.copyOf(other.componentVersions));
+	}
+
+	static Template[] copyOf(Template[] templates) {
+		if (templates == null) {
+			return null;
+		}
+		Template[] copy = new Template[templates.length];
+		for (int i = 0; i < templates.length; i++) {
+			copy[i] = templates[i] == null ? null : new Template(templates[i]);
+		}
+		return copy;
+	}
+
 	public ComponentVersion getComponentVersionById(String id) {
+		if (componentVersions == null) {
+			return null;
+		}
 		for (ComponentVersion componentVersion : componentVersions) {
-			if (componentVersion.id.equals(id)) {
+			if (componentVersion != null && Objects.equals(componentVersion.id, id)) {
 				return componentVersion;
 			}
 		}
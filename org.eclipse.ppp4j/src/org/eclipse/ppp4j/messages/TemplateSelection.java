@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.ppp4j.messages;
 
+import java.util.Objects;
+
 public class TemplateSelection {
 	public String id;
 	public ComponentVersionSelection[] componentVersions;
@@ -24,9 +26,16 @@ public class TemplateSelection {
 		this.componentVersions = componentVersions;
 	}
 
+	public TemplateSelection(TemplateSelection other) {
+		this(other.id, ComponentVersionSelection.copyOf(other.componentVersions));
+	}
+
 	public String getComponentVersion(String componentId) {
+		if (componentVersions == null) {
+			return null;
+		}
 		for (ComponentVersionSelection componentVersionSelection : componentVersions) {
-			if (componentVersionSelection.id.equals(componentId)) {
+			if (componentVersionSelection != null && Objects.equals(componentVersionSelection.id, componentId)) {
 				return componentVersionSelection.versionId;
 			}
 		}
@@ -23,4 +23,8 @@ public class ValidationResult {
 		this.errorMessage = errorMessage;
 		this.erroneousParameters = erroneousParameters;
 	}
+
+	public ValidationResult(ValidationResult other) {
+		this(other.errorMessage, ErroneousParameter.copyOf(other.erroneousParameters));
+	}
 }
@@ -25,4 +25,19 @@ public class Version {
 		this.title = title;
 		this.caption = caption;
 	}
+
+	public Version(Version other) {
+		this(other.id, other.title, other.caption);
+	}
+
+	static Version[] copyOf(Version[] versions) {
+		if (versions == null) {
+			return null;
+		}
+		Version[] copy = new Version[versions.length];
+		for (int i = 0; i < versions.length; i++) {
+			copy[i] = versions[i] == null ? null : new Version(versions[i]);
+		}
+		return copy;
+	}
 }
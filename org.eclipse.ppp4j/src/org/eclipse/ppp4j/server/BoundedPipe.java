@@ -0,0 +1,180 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory byte channel between two threads of the same JVM, used in place of
+ * the standard streams of a server process. Writes block while the buffer is
+ * full and reads block while it is empty.
+ *
+ * Unlike {@link java.io.PipedInputStream}, the pipe does not depend on which
+ * threads use it: closing the output ends the input once the buffered bytes
+ * are read, closing the input ends it at once and makes later writes fail.
+ */
+public class BoundedPipe {
+	private final byte[] buffer;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private int readIndex;
+	private int size;
+	private boolean outputClosed;
+	private boolean inputClosed;
+
+	private final InputStream inputStream = new InputStream() {
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return BoundedPipe.this.read(b, off, len);
+		}
+
+		@Override
+		public int available() {
+			lock.lock();
+			try {
+				return size;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void close() {
+			closeInput();
+		}
+	};
+
+	private final OutputStream outputStream = new OutputStream() {
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			BoundedPipe.this.write(b, off, len);
+		}
+
+		@Override
+		public void close() {
+			closeOutput();
+		}
+	};
+
+	public BoundedPipe(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.buffer = new byte[capacity];
+	}
+
+	/**
+	 * @return the end reading what is written to {@link #getOutputStream()}
+	 */
+	public InputStream getInputStream() {
+		return inputStream;
+	}
+
+	public OutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	private int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		lock.lock();
+		try {
+			while (size == 0) {
+				if (inputClosed || outputClosed) {
+					return -1;
+				}
+				notEmpty.await();
+			}
+			int read = Math.min(len, size);
+			int firstPart = Math.min(read, buffer.length - readIndex);
+			System.arraycopy(buffer, readIndex, b, off, firstPart);
+			System.arraycopy(buffer, 0, b, off + firstPart, read - firstPart);
+			readIndex = (readIndex + read) % buffer.length;
+			size -= read;
+			notFull.signalAll();
+			return read;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void write(byte[] b, int off, int len) throws IOException {
+		lock.lock();
+		try {
+			while (len > 0) {
+				while (size == buffer.length && !inputClosed && !outputClosed) {
+					notFull.await();
+				}
+				if (inputClosed || outputClosed) {
+					throw new IOException("Pipe closed");
+				}
+				int writeIndex = (readIndex + size) % buffer.length;
+				int written = Math.min(len, Math.min(buffer.length - size, buffer.length - writeIndex));
+				System.arraycopy(b, off, buffer, writeIndex, written);
+				size += written;
+				off += written;
+				len -= written;
+				notEmpty.signalAll();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void closeInput() {
+		lock.lock();
+		try {
+			inputClosed = true;
+			size = 0;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void closeOutput() {
+		lock.lock();
+		try {
+			outputClosed = true;
+			notEmpty.signalAll();
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * LSP style framing: every message is preceded by a <code>Content-Length</code>
+ * header giving the size of its UTF-8 encoded body in bytes, followed by an
+ * empty line. The body is parsed directly from the input stream.
+ *
+ * A message with a negative or non numeric length is reported as malformed,
+ * and reading resumes at the next <code>Content-Length</code> header.
+ */
+public class ContentLengthTransport extends MessageTransport {
+	private static final String CONTENT_LENGTH = "Content-Length:"; //$NON-NLS-1$
+
+	private final InputStream input;
+	private final StringBuilder header = new StringBuilder();
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+	private final Writer bodyWriter = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+	private boolean resynchronized;
+
+	public ContentLengthTransport(InputStream inputStream, OutputStream outputStream) {
+		super(inputStream, outputStream);
+		this.input = new BufferedInputStream(inputStream);
+	}
+
+	@Override
+	public <T> T read(MessageParser<T> parser) throws IOException {
+		int contentLength = -1;
+		MalformedMessageException invalidHeader = null;
+		while (true) {
+			if (!readHeader()) {
+				if (contentLength == -1 && invalidHeader == null) {
+					return null;
+				}
+				throw new EOFException("End of stream inside message headers");
+			}
+			if (header.length() == 0) {
+				if (invalidHeader != null) {
+					// the size of the content is unknown, resume at the next header
+					skipToNextMessage();
+					throw invalidHeader;
+				}
+				if (contentLength != -1) {
+					break;
+				}
+				continue;
+			}
+			String field = header.toString();
+			if (field.regionMatches(true, 0, CONTENT_LENGTH, 0, CONTENT_LENGTH.length())) {
+				try {
+					contentLength = Integer.parseInt(field.substring(CONTENT_LENGTH.length()).trim());
+					if (contentLength < 0) {
+						invalidHeader = new MalformedMessageException("Invalid header: " + field, null);
+					}
+				} catch (NumberFormatException e) {
+					invalidHeader = new MalformedMessageException("Invalid header: " + field, e);
+				}
+			}
+		}
+		countBytesRead(contentLength);
+		BoundedInputStream content = new BoundedInputStream(input, contentLength);
+		T message;
+		try {
+			message = parser.parse(new JsonReader(new InputStreamReader(content, StandardCharsets.UTF_8)));
+		} catch (IOException | RuntimeException e) {
+			content.skipRemaining();
+			if (content.isTruncated()) {
+				throw new EOFException("End of stream inside message content");
+			}
+			throw new MalformedMessageException("Malformed message of " + contentLength + " bytes", e);
+		}
+		// a parser may stop before the end of the content, which can still be cut short
+		content.skipRemaining();
+		if (content.isTruncated()) {
+			throw new EOFException("End of stream inside message content");
+		}
+		return message;
+	}
+
+	private boolean readHeader() throws IOException {
+		header.setLength(0);
+		if (resynchronized) {
+			// consumed by skipToNextMessage
+			header.append(CONTENT_LENGTH);
+			resynchronized = false;
+		}
+		int b;
+		int bytes = 0;
+		try {
+			while ((b = input.read()) != -1) {
+				bytes++;
+				if (b == '\n') {
+					return true;
+				}
+				if (b != '\r') {
+					header.append((char) b);
+				}
+			}
+			return header.length() > 0;
+		} finally {
+			countBytesRead(bytes);
+		}
+	}
+
+	/**
+	 * Skips the content of a message whose length is unknown, up to and
+	 * including the <code>Content-Length</code> header of the next message.
+	 */
+	private void skipToNextMessage() throws IOException {
+		int matched = 0;
+		int b;
+		int bytes = 0;
+		try {
+			while ((b = input.read()) != -1) {
+				bytes++;
+				if (Character.toLowerCase((char) b) == Character.toLowerCase(CONTENT_LENGTH.charAt(matched))) {
+					matched++;
+				} else {
+					// the header name does not repeat its first letter
+					matched = Character.toLowerCase((char) b) == Character.toLowerCase(CONTENT_LENGTH.charAt(0)) ? 1 : 0;
+				}
+				if (matched == CONTENT_LENGTH.length()) {
+					resynchronized = true;
+					return;
+				}
+			}
+		} finally {
+			countBytesRead(bytes);
+		}
+	}
+
+	@Override
+	public synchronized void write(Object message) throws IOException {
+		body.reset();
+		gson.toJson(message, message.getClass(), new JsonWriter(bodyWriter));
+		bodyWriter.flush();
+		byte[] headerBytes = (CONTENT_LENGTH + " " + body.size() + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+		outputStream.write(headerBytes);
+		body.writeTo(outputStream);
+		countBytesWritten(headerBytes.length + body.size());
+		outputStream.flush();
+	}
+
+	private static class BoundedInputStream extends FilterInputStream {
+		private long remaining;
+		private boolean truncated;
+
+		BoundedInputStream(InputStream in, long length) {
+			super(in);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int b = super.read();
+			if (b == -1) {
+				truncated = true;
+			} else {
+				remaining--;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int read = super.read(b, off, (int) Math.min(len, remaining));
+			if (read == -1) {
+				truncated = true;
+			} else {
+				remaining -= read;
+			}
+			return read;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(super.available(), remaining);
+		}
+
+		@Override
+		public void close() {
+			// the underlying stream carries the following messages
+		}
+
+		boolean isTruncated() {
+			return truncated;
+		}
+
+		void skipRemaining() throws IOException {
+			while (remaining > 0 && !truncated) {
+				long skipped = super.skip(remaining);
+				if (skipped <= 0) {
+					if (super.read() == -1) {
+						truncated = true;
+					} else {
+						remaining--;
+					}
+				} else {
+					remaining -= skipped;
+				}
+			}
+		}
+	}
+}
@@ -15,6 +15,7 @@ package org.eclipse.ppp4j.server;
 import org.eclipse.ppp4j.messages.Initialize;
 import org.eclipse.ppp4j.messages.InitializeResult;
 import org.eclipse.ppp4j.messages.PreviewResult;
+import org.eclipse.ppp4j.messages.ProvisionBatchResult;
 import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
 import org.eclipse.ppp4j.messages.ProvisionResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
@@ -34,5 +35,7 @@ public interface Endpoints {
 
 	ProvisionResult provision(ProvisioningParameters parameters);
 
+	ProvisionBatchResult provisionBatch(ProvisioningParameters[] parameters);
+
 	ProvisionInstructionsResult provisionInstructions(ProvisioningParameters parameters);
 }
@@ -0,0 +1,225 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks project locations for the validators, which run on every change the
+ * user makes to the parameters. What is found for a location is kept for a
+ * short time, so validating the same location again does not touch the file
+ * system.
+ *
+ * A probe reads the attributes of the location in one call, then checks
+ * whether the location, or its parent when it does not exist, is writable.
+ * When the {@value #WATCH_PROPERTY} system property is set, the parent
+ * directories of probed locations are also watched and the probes of their
+ * children are dropped as soon as they change.
+ */
+public final class LocationProbe {
+	public static final String TTL_PROPERTY = "ppp4j.location.ttl"; //$NON-NLS-1$
+	public static final String WATCH_PROPERTY = "ppp4j.location.watch"; //$NON-NLS-1$
+	private static final long DEFAULT_TTL_MILLIS = 2000;
+	static final int MAX_PROBES = 256;
+	private static final int MAX_WATCHED_DIRECTORIES = 32;
+
+	private static final LocationProbe DEFAULT = new LocationProbe(
+			Long.getLong(TTL_PROPERTY, DEFAULT_TTL_MILLIS), Boolean.getBoolean(WATCH_PROPERTY));
+
+	private final long ttlNanos;
+	private final Map<Path, Result> probes = new ConcurrentHashMap<>();
+	private final WatchService watchService;
+	private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+
+	/**
+	 * What was found at a location.
+	 */
+	public static final class Result {
+		private final boolean exists;
+		private final boolean isFile;
+		private final boolean writable;
+		private final boolean hasParent;
+		private final boolean parentWritable;
+		private final long expiresNanos;
+
+		Result(boolean exists, boolean isFile, boolean writable, boolean hasParent, boolean parentWritable,
+				long expiresNanos) {
+			this.exists = exists;
+			this.isFile = isFile;
+			this.writable = writable;
+			this.hasParent = hasParent;
+			this.parentWritable = parentWritable;
+			this.expiresNanos = expiresNanos;
+		}
+
+		public boolean exists() {
+			return exists;
+		}
+
+		public boolean isFile() {
+			return isFile;
+		}
+
+		/**
+		 * @return whether the location exists and can be written
+		 */
+		public boolean isWritable() {
+			return writable;
+		}
+
+		public boolean hasParent() {
+			return hasParent;
+		}
+
+		/**
+		 * @return whether the parent can be written, only checked when the location
+		 *         does not exist
+		 */
+		public boolean isParentWritable() {
+			return parentWritable;
+		}
+	}
+
+	public static LocationProbe getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @param ttlMillis how long a probe is kept
+	 * @param watch     whether to watch the parents of probed locations
+	 */
+	public LocationProbe(long ttlMillis, boolean watch) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.watchService = watch ? startWatching() : null;
+	}
+
+	/**
+	 * @return what is at the location, an invalid path is reported as a location
+	 *         without parent
+	 */
+	public Result probe(String location) {
+		Path path;
+		try {
+			path = Paths.get(location).normalize();
+		} catch (InvalidPathException e) {
+			return new Result(false, false, false, false, false, 0);
+		}
+		long now = System.nanoTime();
+		Result result = probes.get(path);
+		if (result != null && result.expiresNanos - now > 0) {
+			return result;
+		}
+		result = probe(path, now + ttlNanos);
+		if (probes.size() >= MAX_PROBES) {
+			probes.values().removeIf(probe -> probe.expiresNanos - now <= 0);
+			if (probes.size() >= MAX_PROBES) {
+				probes.clear();
+			}
+		}
+		probes.put(path, result);
+		if (watchService != null && path.getParent() != null) {
+			watch(path.getParent());
+		}
+		return result;
+	}
+
+	/**
+	 * Drops what is known of the location, to be called once it was changed.
+	 */
+	public void invalidate(String location) {
+		try {
+			probes.remove(Paths.get(location).normalize());
+		} catch (InvalidPathException e) {
+			// never probed
+		}
+	}
+
+	private static Result probe(Path path, long expiresNanos) {
+		Path parent = path.getParent();
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			attributes = null;
+		} catch (IOException e) {
+			// unreadable, it exists but cannot be used
+			return new Result(true, false, false, parent != null, false, expiresNanos);
+		}
+		if (attributes == null) {
+			return new Result(false, false, false, parent != null, parent != null && Files.isWritable(parent),
+					expiresNanos);
+		}
+		return new Result(true, attributes.isRegularFile(), Files.isWritable(path), parent != null, false,
+				expiresNanos);
+	}
+
+	private void watch(Path directory) {
+		if (watchedDirectories.containsKey(directory) || watchedDirectories.size() >= MAX_WATCHED_DIRECTORIES) {
+			return;
+		}
+		try {
+			watchedDirectories.computeIfAbsent(directory, key -> {
+				try {
+					return key.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+							StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+				} catch (IOException e) {
+					// not watchable, for example missing, the probes expire instead
+					return null;
+				}
+			});
+		} catch (ClosedWatchServiceException e) {
+			// the probes expire instead
+		}
+	}
+
+	private WatchService startWatching() {
+		WatchService service;
+		try {
+			service = FileSystems.getDefault().newWatchService();
+		} catch (IOException | UnsupportedOperationException e) {
+			return null;
+		}
+		Thread watcher = new Thread(() -> {
+			try {
+				while (true) {
+					WatchKey key = service.take();
+					Path directory = (Path) key.watchable();
+					key.pollEvents();
+					probes.keySet().removeIf(path -> directory.equals(path.getParent()));
+					if (!key.reset()) {
+						watchedDirectories.remove(directory, key);
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// stopped
+			}
+		}, "ppp4j-location-watcher-1"); //$NON-NLS-1$
+		watcher.setDaemon(true);
+		watcher.start();
+		return service;
+	}
+}
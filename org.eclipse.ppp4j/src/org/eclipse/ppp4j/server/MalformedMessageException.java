@@ -0,0 +1,27 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a {@link MessageTransport} when a message could not be parsed. The
+ * rest of the message has been skipped, so the next message can still be read.
+ */
+public class MalformedMessageException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	public MalformedMessageException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
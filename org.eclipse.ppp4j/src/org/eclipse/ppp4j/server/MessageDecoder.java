@@ -0,0 +1,150 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
+import org.eclipse.ppp4j.messages.ResponseError;
+import org.eclipse.ppp4j.messages.RpcRequest;
+import org.eclipse.ppp4j.messages.RpcResponse;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Reads RPC messages and binds their payload straight to the message class
+ * expected for them, without going through an intermediate JSON string.
+ *
+ * The payload type is looked up as soon as the key it depends on has been
+ * read (the method of a request, the id of a response). When the payload comes
+ * first in the message it is kept as a {@link JsonElement} and bound once the
+ * whole message has been read.
+ */
+public final class MessageDecoder {
+
+	private MessageDecoder() {
+	}
+
+	/**
+	 * @param paramsTypes maps a full method name to the type of its parameters,
+	 *                    or to <code>null</code> when the parameters are left as
+	 *                    generic maps and lists
+	 * @throws JsonParseException if the message has no method
+	 */
+	public static RpcRequest readRequest(Gson gson, JsonReader reader, Function<String, Type> paramsTypes)
+			throws IOException {
+		Object message = readMessage(gson, reader, paramsTypes, id -> null);
+		if (!(message instanceof RpcRequest)) {
+			throw new JsonParseException("Expected a request, got a response");
+		}
+		return (RpcRequest) message;
+	}
+
+	/**
+	 * @param resultTypes maps a response id to the type of its result, or to
+	 *                    <code>null</code> when the result is left as generic maps
+	 *                    and lists
+	 * @throws JsonParseException if the message has a method
+	 */
+	public static RpcResponse readResponse(Gson gson, JsonReader reader, Function<String, Type> resultTypes)
+			throws IOException {
+		Object message = readMessage(gson, reader, method -> null, resultTypes);
+		if (!(message instanceof RpcResponse)) {
+			throw new JsonParseException("Expected a response, got a request");
+		}
+		return (RpcResponse) message;
+	}
+
+	/**
+	 * Reads a message that is either a response or a request, as a client does
+	 * since servers send notifications between their responses.
+	 *
+	 * @return a {@link RpcRequest} if the message has a method, a
+	 *         {@link RpcResponse} otherwise
+	 */
+	public static Object readMessage(Gson gson, JsonReader reader, Function<String, Type> paramsTypes,
+			Function<String, Type> resultTypes) throws IOException {
+		String id = null;
+		String method = null;
+		Object params = null;
+		Object result = null;
+		ResponseError error = null;
+		JsonElement unboundParams = null;
+		JsonElement unboundResult = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+			case "id":
+				id = readString(reader);
+				break;
+			case "method":
+				method = readString(reader);
+				break;
+			case "params":
+				if (method == null) {
+					unboundParams = gson.getAdapter(JsonElement.class).read(reader);
+				} else {
+					params = gson.getAdapter(typeToken(paramsTypes.apply(method))).read(reader);
+				}
+				break;
+			case "result":
+				if (id == null) {
+					unboundResult = gson.getAdapter(JsonElement.class).read(reader);
+				} else {
+					result = gson.getAdapter(typeToken(resultTypes.apply(id))).read(reader);
+				}
+				break;
+			case "error":
+				error = gson.getAdapter(ResponseError.class).read(reader);
+				break;
+			default:
+				reader.skipValue();
+				break;
+			}
+		}
+		reader.endObject();
+		if (method != null) {
+			if (unboundParams != null) {
+				params = gson.fromJson(unboundParams, typeOrObject(paramsTypes.apply(method)));
+			}
+			return new RpcRequest(id, method, params);
+		}
+		if (unboundResult != null && id != null) {
+			result = gson.fromJson(unboundResult, typeOrObject(resultTypes.apply(id)));
+		}
+		return error == null ? new RpcResponse(id, result) : new RpcResponse(id, error);
+	}
+
+	private static String readString(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+		return reader.nextString();
+	}
+
+	private static Type typeOrObject(Type type) {
+		return type == null ? Object.class : type;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static TypeToken<Object> typeToken(Type type) {
+		return (TypeToken<Object>) TypeToken.get(typeOrObject(type));
+	}
+}
@@ -0,0 +1,97 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Frames messages on a pair of byte streams. Messages are parsed from and
+ * serialized to the streams with Gson's streaming API, so no intermediate
+ * string is built for a message.
+ *
+ * Reading is expected to happen on a single thread, writing may happen from
+ * any thread.
+ */
+public abstract class MessageTransport implements Closeable {
+	protected static final Gson gson = new Gson();
+
+	protected final InputStream inputStream;
+	protected final OutputStream outputStream;
+	private final AtomicLong bytesRead = new AtomicLong();
+	private final AtomicLong bytesWritten = new AtomicLong();
+
+	protected MessageTransport(InputStream inputStream, OutputStream outputStream) {
+		this.inputStream = inputStream;
+		this.outputStream = outputStream;
+	}
+
+	/**
+	 * Reads the next message from the input stream.
+	 *
+	 * @param parser reads the message from a reader positioned at its start
+	 * @return the parsed message, or <code>null</code> at the end of the stream
+	 * @throws MalformedMessageException if the parser failed on the message, the
+	 *                                   stream is positioned after it
+	 * @throws IOException               if the stream could not be read
+	 */
+	public abstract <T> T read(MessageParser<T> parser) throws IOException;
+
+	/**
+	 * Serializes the message to the output stream and flushes it.
+	 */
+	public abstract void write(Object message) throws IOException;
+
+	/**
+	 * @return the number of bytes consumed from the input stream so far,
+	 *         framing included
+	 */
+	public long getBytesRead() {
+		return bytesRead.get();
+	}
+
+	/**
+	 * @return the number of bytes written to the output stream so far, framing
+	 *         included
+	 */
+	public long getBytesWritten() {
+		return bytesWritten.get();
+	}
+
+	protected void countBytesRead(long bytes) {
+		bytesRead.addAndGet(bytes);
+	}
+
+	protected void countBytesWritten(long bytes) {
+		bytesWritten.addAndGet(bytes);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			inputStream.close();
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	public interface MessageParser<T> {
+		T parse(JsonReader reader) throws IOException;
+	}
+}
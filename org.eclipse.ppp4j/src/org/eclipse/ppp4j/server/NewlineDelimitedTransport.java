@@ -0,0 +1,124 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * One JSON message per line, the framing used by the original servers and
+ * clients. A line is collected into a reused byte buffer and parsed from there,
+ * so a message that fails to parse can be skipped without losing the ones
+ * after it.
+ */
+public class NewlineDelimitedTransport extends MessageTransport {
+	private final InputStream input;
+	private final Writer writer;
+	private final LineBuffer line = new LineBuffer();
+
+	public NewlineDelimitedTransport(InputStream inputStream, OutputStream outputStream) {
+		super(inputStream, outputStream);
+		this.input = new BufferedInputStream(inputStream);
+		this.writer = new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(outputStream) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				countBytesWritten(len);
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				countBytesWritten(1);
+				out.write(b);
+			}
+		}, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public <T> T read(MessageParser<T> parser) throws IOException {
+		do {
+			if (!readLine()) {
+				return null;
+			}
+		} while (line.isBlank());
+		try {
+			return parser.parse(new JsonReader(new InputStreamReader(line.toInputStream(), StandardCharsets.UTF_8)));
+		} catch (IOException | RuntimeException e) {
+			throw new MalformedMessageException(line.toString(), e);
+		}
+	}
+
+	private boolean readLine() throws IOException {
+		line.reset();
+		int b;
+		int bytes = 0;
+		try {
+			while ((b = input.read()) != -1) {
+				bytes++;
+				if (b == '\n') {
+					return true;
+				}
+				if (b != '\r') {
+					line.write(b);
+				}
+			}
+			return line.size() > 0;
+		} finally {
+			countBytesRead(bytes);
+		}
+	}
+
+	@Override
+	public synchronized void write(Object message) throws IOException {
+		gson.toJson(message, message.getClass(), new JsonWriter(writer));
+		writer.write('\n');
+		writer.flush();
+	}
+
+	private static class LineBuffer extends ByteArrayOutputStream {
+		LineBuffer() {
+			super(1024);
+		}
+
+		boolean isBlank() {
+			for (int i = 0; i < count; i++) {
+				if (!Character.isWhitespace(buf[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		InputStream toInputStream() {
+			return new ByteArrayInputStream(buf, 0, count);
+		}
+
+		@Override
+		public synchronized String toString() {
+			return new String(buf, 0, count, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -12,60 +12,363 @@
  *******************************************************************************/
 package org.eclipse.ppp4j.server;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+import org.eclipse.ppp4j.messages.CancelParams;
+import org.eclipse.ppp4j.messages.ErroneousParameter;
 import org.eclipse.ppp4j.messages.Initialize;
+import org.eclipse.ppp4j.messages.InitializeResult;
+import org.eclipse.ppp4j.messages.Instruction;
+import org.eclipse.ppp4j.messages.InstructionChunk;
+import org.eclipse.ppp4j.messages.Progress;
+import org.eclipse.ppp4j.messages.ProvisionBatchResult;
+import org.eclipse.ppp4j.messages.ProvisionInstructionsResult;
+import org.eclipse.ppp4j.messages.ProvisionResult;
 import org.eclipse.ppp4j.messages.ProvisioningParameters;
+import org.eclipse.ppp4j.messages.ResponseError;
 import org.eclipse.ppp4j.messages.RpcRequest;
 import org.eclipse.ppp4j.messages.RpcResponse;
+import org.eclipse.ppp4j.messages.ValidationResult;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 
 public abstract class ProvisioningServer implements Endpoints {
 	private static String methodPrefix = "projectProvisioning/";
 	private static Gson gson = new Gson();
+	/**
+	 * Built-in method answering with {@link ServerMetrics#snapshot()}.
+	 */
+	public static final String METRICS_METHOD = "$metrics"; //$NON-NLS-1$
+	/**
+	 * System property giving the number of seconds between two metrics reports
+	 * on the standard error stream, no reports are written when not set.
+	 */
+	public static final String METRICS_INTERVAL_PROPERTY = "ppp4j.metrics.interval"; //$NON-NLS-1$
+	/**
+	 * Notification sent to the client with the {@link Progress} of a request,
+	 * see {@link RequestContext#reportProgress(String, int, int)}.
+	 */
+	public static final String PROGRESS_METHOD = "$/progress"; //$NON-NLS-1$
+	/**
+	 * Notification sent by the client with the {@link CancelParams} of a
+	 * request it no longer waits for, see {@link #cancelRequest(String)}.
+	 */
+	public static final String CANCEL_METHOD = "$/cancelRequest"; //$NON-NLS-1$
+	/**
+	 * Request answered at once with an empty result, without waiting for a
+	 * worker, so that clients can tell a live server from a hung one.
+	 */
+	public static final String PING_METHOD = "$/ping"; //$NON-NLS-1$
+	/**
+	 * Notification sent to the client with an {@link InstructionChunk} of a
+	 * chunked {@link Instruction}, before the result of the request.
+	 */
+	public static final String INSTRUCTION_CHUNK_METHOD = "$/instructionChunk"; //$NON-NLS-1$
+	// 64KiB once base64 encoded
+	private static final int CHUNK_SIZE = 48 * 1024;
+	private static final int CHUNKS_IN_FLIGHT = 4;
+
+	private final ServerMetrics metrics = new ServerMetrics();
+	private final Map<String, RequestContext> activeRequests = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of requests that can be handled at the same time. Responses are
+	 * written as soon as they are ready and are matched to their request by id,
+	 * so a slow request does not hold back the ones received after it.
+	 *
+	 * Servers whose endpoints are not safe to call concurrently keep the
+	 * default of 1, which handles requests one at a time in the order received.
+	 *
+	 * @return the size of the worker pool, at least 1
+	 */
+	protected int getMaxConcurrentRequests() {
+		return 1;
+	}
+
+	/**
+	 * Number of requests that can wait for a free worker before the server
+	 * stops reading new requests.
+	 *
+	 * @return the capacity of the request queue, at least 1
+	 */
+	protected int getMaxQueuedRequests() {
+		return 64;
+	}
+
+	/**
+	 * Number of projects of a batch provisioned at the same time, see
+	 * {@link #provisionBatch(ProvisioningParameters[])}. Defaults to the number
+	 * of requests handled at the same time, so servers whose endpoints are not
+	 * safe to call concurrently provision batches one project at a time.
+	 *
+	 * @return the number of projects, at least 1
+	 */
+	protected int getMaxConcurrentProvisions() {
+		return getConcurrencyLimit();
+	}
+
+	/**
+	 * Creates the transport used by {@link #beginListening()}. Servers override
+	 * this to change how messages are framed on the standard streams.
+	 */
+	protected MessageTransport createTransport(InputStream inputStream, OutputStream outputStream) {
+		return new NewlineDelimitedTransport(inputStream, outputStream);
+	}
+
+	public ServerMetrics getMetrics() {
+		return metrics;
+	}
 
 	public void beginListening() {
-		BufferedReader br = null;
+		beginListening(System.in, System.out);
+	}
+
+	/**
+	 * Serves the requests read from the input stream until it ends, framed by
+	 * the transport of {@link #createTransport(InputStream, OutputStream)}. The
+	 * streams are closed when this returns.
+	 */
+	public void beginListening(InputStream inputStream, OutputStream outputStream) {
+		beginListening(createTransport(inputStream, outputStream));
+	}
+
+	public void beginListening(MessageTransport transport) {
+		int workerCount = getConcurrencyLimit();
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, getMaxQueuedRequests())), new DaemonThreadFactory("worker"),
+				(task, executor) -> {
+					try {
+						executor.getQueue().put(task);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RejectedExecutionException(e);
+					}
+				});
+		ExecutorService writer = Executors.newSingleThreadExecutor(new DaemonThreadFactory("writer"));
+		metrics.setQueueDepth(() -> workers.getQueue().size() + workers.getActiveCount());
+		ScheduledExecutorService reporter = startMetricsReporter();
+		RequestContext.Notifier notifier = (method, params) -> writer
+				.submit(() -> sendMessage(transport, new RpcRequest(null, methodPrefix + method, params)));
+		// clients that read a single line per request only get notifications once they asked for them
+		boolean notificationsSupported = false;
 		try {
-			br = new BufferedReader(new InputStreamReader(System.in));
 			while (true) {
-				String input = br.readLine();
-				if (input == null) {
-					break;
-				}
 				RpcRequest request;
 				try {
-					request = gson.fromJson(input, RpcRequest.class);
-				} catch (Exception e) {
+					request = transport.read(reader -> {
+						long decodeStart = System.nanoTime();
+						RpcRequest decoded = MessageDecoder.readRequest(gson, reader,
+								ProvisioningServer::getParamsType);
+						metrics.recordDecode(System.nanoTime() - decodeStart);
+						return decoded;
+					});
+				} catch (MalformedMessageException e) {
+					metrics.recordMalformedMessage();
 					continue;
 				}
-				sendMessage(generateResponse(request));
+				if (request == null) {
+					break;
+				}
+				if ((methodPrefix + CANCEL_METHOD).equals(request.method)) {
+					// not queued, the request to cancel may be holding a worker
+					if (request.params instanceof CancelParams) {
+						cancelRequest(((CancelParams) request.params).id);
+					}
+					continue;
+				}
+				if ((methodPrefix + PING_METHOD).equals(request.method)) {
+					// not queued, busy workers do not make the server look hung
+					if (request.id != null) {
+						writer.execute(() -> sendMessage(transport, new RpcResponse(request.id, (Object) null)));
+					}
+					continue;
+				}
+				if ((methodPrefix + "initalize").equals(request.method) && request.params instanceof Initialize) {
+					notificationsSupported = ((Initialize) request.params).notificationsSupported;
+				}
+				// registered before queuing so that a queued request can be cancelled
+				RequestContext context = openContext(request.id, notificationsSupported ? notifier : null, true);
+				long queuedNanos = System.nanoTime();
+				workers.execute(() -> {
+					metrics.recordQueued(System.nanoTime() - queuedNanos);
+					RpcResponse response;
+					try {
+						response = handleRequest(request, context);
+					} catch (RuntimeException | LinkageError e) {
+						// answered so that the client does not wait for a result that never comes
+						response = request.id == null ? null
+								: new RpcResponse(request.id,
+										new ResponseError(ResponseError.INTERNAL_ERROR, String.valueOf(e)));
+					} finally {
+						closeContext(context);
+					}
+					RpcResponse answer = response;
+					writer.execute(() -> sendMessage(transport, answer));
+				});
 			}
 		} catch (Exception e) {
-			System.out.println(e);
+			System.err.println(e);
 		} finally {
-			if (br != null) {
-				try {
-					br.close();
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+			if (reporter != null) {
+				reporter.shutdownNow();
+			}
+			shutdownAndWait(workers);
+			shutdownAndWait(writer);
+			try {
+				transport.close();
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 		}
 	}
 
-	private void sendMessage(RpcResponse response) {
-		if (response == null) {
-			return;
+	private ScheduledExecutorService startMetricsReporter() {
+		long interval = Long.getLong(METRICS_INTERVAL_PROPERTY, 0L);
+		if (interval <= 0) {
+			return null;
+		}
+		ScheduledThreadPoolExecutor reporter = new ScheduledThreadPoolExecutor(1,
+				new DaemonThreadFactory("metrics"));
+		reporter.setRemoveOnCancelPolicy(true);
+		reporter.scheduleAtFixedRate(() -> metrics.print(System.err), interval, interval, TimeUnit.SECONDS);
+		return reporter;
+	}
+
+	private static void shutdownAndWait(ExecutorService executor) {
+		executor.shutdown();
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				// keep waiting for in-flight requests to finish
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
 		}
-		String string = gson.toJson(response);
-		if (string == null || string.isEmpty() || string.equals("null")) {
+	}
+
+	private void sendMessage(MessageTransport transport, Object message) {
+		if (message == null) {
 			return;
 		}
-		System.out.println(string);
+		try {
+			long start = System.nanoTime();
+			transport.write(message);
+			metrics.recordEncode(System.nanoTime() - start);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Answers a request whose parameters are already bound to their message
+	 * class, as the listening loop does for every request it reads. Clients
+	 * running the server in their own JVM call it directly to skip
+	 * serialization.
+	 *
+	 * @return the response, or <code>null</code> if the method is not handled
+	 */
+	public RpcResponse handleRequest(RpcRequest request) {
+		return handleRequest(request, (Consumer<Progress>) null);
+	}
+
+	/**
+	 * Like {@link #handleRequest(RpcRequest)}, passing the progress reported by
+	 * the endpoint to the listener. The request can be cancelled with
+	 * {@link #cancelRequest(String)} while it is handled.
+	 */
+	public RpcResponse handleRequest(RpcRequest request, Consumer<Progress> progressListener) {
+		RequestContext context = openContext(request == null ? null : request.id, (method, params) -> {
+			if (progressListener != null && params instanceof Progress) {
+				progressListener.accept((Progress) params);
+			}
+			return CompletableFuture.completedFuture(null);
+		}, false);
+		try {
+			return handleRequest(request, context);
+		} finally {
+			closeContext(context);
+		}
+	}
+
+	/**
+	 * Marks the request as cancelled, see {@link RequestContext#isCancelled()}. A
+	 * request cancelled before it started is not handled and gets no response.
+	 */
+	public void cancelRequest(String id) {
+		RequestContext context = id == null ? null : activeRequests.get(id);
+		if (context != null) {
+			context.cancel();
+		}
+	}
+
+	private RequestContext openContext(String id, RequestContext.Notifier notifier, boolean remote) {
+		RequestContext context = new RequestContext(id, notifier, remote);
+		if (id != null) {
+			activeRequests.put(id, context);
+		}
+		return context;
+	}
+
+	private void closeContext(RequestContext context) {
+		if (context.getRequestId() != null) {
+			activeRequests.remove(context.getRequestId(), context);
+		}
+	}
+
+	private RpcResponse handleRequest(RpcRequest request, RequestContext context) {
+		if (context.isCancelled()) {
+			return null;
+		}
+		RequestContext previous = RequestContext.enter(context);
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			RpcResponse response = generateResponse(request);
+			failed = false;
+			return response;
+		} finally {
+			metrics.recordRequest(request == null ? null : request.method, System.nanoTime() - start, failed);
+			RequestContext.exit(previous);
+		}
+	}
+
+	/**
+	 * @return the number of requests this server handles at the same time, see
+	 *         {@link #getMaxConcurrentRequests()}
+	 */
+	public final int getConcurrencyLimit() {
+		return Math.max(1, getMaxConcurrentRequests());
 	}
 
 	private RpcResponse generateResponse(RpcRequest request) {
@@ -81,23 +384,318 @@ public abstract class ProvisioningServer implements Endpoints {
 		Object result;
 		switch (method) {
 		case "initalize":
-			result = initialize(gson.fromJson(gson.toJson(request.params), Initialize.class));
+			result = initializeWithHash((Initialize) request.params);
 			break;
 		case "validation":
-			result = validation(gson.fromJson(gson.toJson(request.params), ProvisioningParameters.class));
+			result = validation((ProvisioningParameters) request.params);
 			break;
 		case "preview":
-			result = preview(gson.fromJson(gson.toJson(request.params), ProvisioningParameters.class));
+			result = preview((ProvisioningParameters) request.params);
 			break;
 		case "provision":
-			result = provision(gson.fromJson(gson.toJson(request.params), ProvisioningParameters.class));
+			result = provision((ProvisioningParameters) request.params);
 			break;
 		case "provisionInstructions":
-			result = provisionInstructions(gson.fromJson(gson.toJson(request.params), ProvisioningParameters.class));
+			result = sendInstructionChunks(provisionInstructions((ProvisioningParameters) request.params));
+			break;
+		case "provisionBatch":
+			result = provisionBatch((ProvisioningParameters[]) request.params);
 			break;
 		default:
+			if (METRICS_METHOD.equals(method)) {
+				result = metrics.snapshot();
+				break;
+			}
+			if (PING_METHOD.equals(method)) {
+				result = null;
+				break;
+			}
 			return generateResponseFromCustomEndpoint(request);
 		}
 		return new RpcResponse(request.id, result);
 	}
+
+	/**
+	 * Validates every project, then provisions them with {@link #provision}, at
+	 * most {@link #getMaxConcurrentProvisions()} at a time. Nothing is
+	 * provisioned when a project is invalid or when two projects share a
+	 * location. Each result is sent as {@link Progress} of the request as soon as
+	 * its project is done. Projects not started when the request is cancelled
+	 * are not provisioned.
+	 */
+	@Override
+	public ProvisionBatchResult provisionBatch(ProvisioningParameters[] parameters) {
+		if (parameters == null) {
+			return new ProvisionBatchResult("No projects to provision", new ProvisionResult[0]);
+		}
+		ProvisionResult[] results = new ProvisionResult[parameters.length];
+		int invalid = 0;
+		Map<String, Integer> locations = new HashMap<>();
+		for (int i = 0; i < parameters.length; i++) {
+			ValidationResult validation = parameters[i] == null ? null : validation(parameters[i]);
+			Integer sameLocation = parameters[i] == null || parameters[i].location == null ? null
+					: locations.putIfAbsent(parameters[i].location, i);
+			if (validation == null) {
+				results[i] = notProvisioned("Missing project parameters", new ErroneousParameter[0]);
+			} else if (validation.errorMessage != null
+					|| (validation.erroneousParameters != null && validation.erroneousParameters.length > 0)) {
+				results[i] = notProvisioned(validation.errorMessage, validation.erroneousParameters);
+			} else if (sameLocation != null) {
+				results[i] = notProvisioned("Same location as project " + sameLocation, new ErroneousParameter[0]);
+			} else {
+				continue;
+			}
+			invalid++;
+		}
+		if (invalid > 0) {
+			for (int i = 0; i < results.length; i++) {
+				if (results[i] == null) {
+					results[i] = notProvisioned(null, new ErroneousParameter[0]);
+				}
+			}
+			return new ProvisionBatchResult(invalid + " of " + parameters.length
+					+ " projects are invalid, none were provisioned", results);
+		}
+
+		RequestContext batchContext = RequestContext.current();
+		ExecutorService provisioners = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(getMaxConcurrentProvisions(), parameters.length)),
+				new DaemonThreadFactory("batch"));
+		Object progressLock = new Object();
+		int[] finished = new int[1];
+		try {
+			List<Future<?>> provisions = new ArrayList<>(parameters.length);
+			for (int i = 0; i < parameters.length; i++) {
+				int index = i;
+				provisions.add(provisioners.submit(() -> {
+					RequestContext context = new RequestContext(batchContext.getRequestId(), null, false);
+					batchContext.onCancel(context::cancel);
+					ProvisionResult result;
+					if (context.isCancelled()) {
+						result = notProvisioned("Provisioning cancelled", new ErroneousParameter[0]);
+					} else {
+						RequestContext previous = RequestContext.enter(context);
+						try {
+							result = provision(parameters[index]);
+						} catch (RuntimeException e) {
+							result = notProvisioned(String.valueOf(e), new ErroneousParameter[0]);
+						} finally {
+							RequestContext.exit(previous);
+						}
+					}
+					results[index] = result;
+					synchronized (progressLock) {
+						Progress progress = new Progress(batchContext.getRequestId(),
+								"Provisioned " + parameters[index].name, ++finished[0], parameters.length);
+						progress.index = index;
+						progress.result = result;
+						batchContext.reportProgress(progress);
+					}
+				}));
+			}
+			for (Future<?> provision : provisions) {
+				provision.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		} finally {
+			provisioners.shutdownNow();
+		}
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				results[i] = notProvisioned("Provisioning interrupted", new ErroneousParameter[0]);
+			}
+		}
+		return new ProvisionBatchResult(null, results);
+	}
+
+	/**
+	 * Sends the content of the chunked instructions of the result as
+	 * notifications, a few chunks at a time so that a file is never held in
+	 * memory. Clients calling the server directly read the content from
+	 * {@link Instruction#source} themselves. Clients that did not opt in to
+	 * notifications get the content base64 encoded in the instruction instead.
+	 *
+	 * @return a copy of the result with the size and hash of the chunked
+	 *         contents, <code>null</code> if the request was cancelled
+	 */
+	private ProvisionInstructionsResult sendInstructionChunks(ProvisionInstructionsResult result) {
+		RequestContext context = RequestContext.current();
+		if (result == null || result.newFiles == null || !context.isRemote()) {
+			return result;
+		}
+		ProvisionInstructionsResult sent = new ProvisionInstructionsResult(result);
+		for (Instruction instruction : sent.newFiles) {
+			if (instruction == null || !instruction.chunked || instruction.source == null) {
+				continue;
+			}
+			try {
+				if (context.canNotify()) {
+					sendChunks(context, instruction);
+				} else {
+					inlineContent(instruction);
+				}
+			} catch (IOException | ExecutionException e) {
+				return new ProvisionInstructionsResult("Unable to send " + instruction.path + ": " + e.getMessage(),
+						new ErroneousParameter[0], result.name, new Instruction[0], new String[0]);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			if (context.isCancelled()) {
+				return null;
+			}
+		}
+		return sent;
+	}
+
+	private static void inlineContent(Instruction instruction) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[CHUNK_SIZE];
+		try (InputStream in = instruction.source.open()) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+		}
+		byte[] bytes = content.toByteArray();
+		instruction.content = Base64.getEncoder().encodeToString(bytes);
+		instruction.encoding = Instruction.BASE64;
+		instruction.chunked = false;
+		instruction.size = bytes.length;
+		instruction.sha256 = toHex(sha256().digest(bytes));
+	}
+
+	private static void sendChunks(RequestContext context, Instruction instruction)
+			throws IOException, InterruptedException, ExecutionException {
+		MessageDigest digest = sha256();
+		Base64.Encoder encoder = Base64.getEncoder();
+		Deque<Future<?>> inFlight = new ArrayDeque<>();
+		byte[] current = new byte[CHUNK_SIZE];
+		byte[] next = new byte[CHUNK_SIZE];
+		long offset = 0;
+		try (InputStream in = instruction.source.open()) {
+			int currentLength = fill(in, current);
+			boolean last;
+			do {
+				// a full chunk may be followed by nothing, read ahead to flag the last one
+				int nextLength = currentLength < CHUNK_SIZE ? 0 : fill(in, next);
+				last = nextLength == 0;
+				digest.update(current, 0, currentLength);
+				String data = new String(encoder.encode(ByteBuffer.wrap(current, 0, currentLength)).array(),
+						StandardCharsets.ISO_8859_1);
+				inFlight.add(context.sendNotification(INSTRUCTION_CHUNK_METHOD,
+						new InstructionChunk(context.getRequestId(), instruction.path, offset, data, last)));
+				if (inFlight.size() > CHUNKS_IN_FLIGHT) {
+					inFlight.poll().get();
+				}
+				offset += currentLength;
+				byte[] swap = current;
+				current = next;
+				next = swap;
+				currentLength = nextLength;
+			} while (!last && !context.isCancelled());
+		}
+		for (Future<?> chunk : inFlight) {
+			chunk.get();
+		}
+		instruction.size = offset;
+		instruction.sha256 = toHex(digest.digest());
+	}
+
+	private static int fill(InputStream in, byte[] buffer) throws IOException {
+		int length = 0;
+		int read;
+		while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+		}
+		return length;
+	}
+
+	private static ProvisionResult notProvisioned(String errorMessage, ErroneousParameter[] erroneousParameters) {
+		return new ProvisionResult(errorMessage,
+				erroneousParameters == null ? new ErroneousParameter[0] : erroneousParameters, null, new String[0]);
+	}
+
+	private InitializeResult initializeWithHash(Initialize initialize) {
+		InitializeResult result = initialize(initialize);
+		if (result == null) {
+			return null;
+		}
+		JsonObject content = gson.toJsonTree(result).getAsJsonObject();
+		content.remove("hash"); //$NON-NLS-1$
+		content.remove("unchanged"); //$NON-NLS-1$
+		String hash = hash(gson.toJson(content));
+		// answer with a copy, servers may share the result between concurrent
+		// requests
+		InitializeResult response;
+		if (initialize != null && hash.equals(initialize.cachedResultHash)) {
+			response = new InitializeResult();
+			response.unchanged = true;
+		} else {
+			response = new InitializeResult(result);
+			response.unchanged = false;
+		}
+		response.hash = hash;
+		return response;
+	}
+
+	private static String hash(String content) {
+		return toHex(sha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] digest) {
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static Type getParamsType(String method) {
+		if (!method.startsWith(methodPrefix)) {
+			return null;
+		}
+		switch (method.substring(methodPrefix.length())) {
+		case "initalize":
+			return Initialize.class;
+		case "validation":
+		case "preview":
+		case "provision":
+		case "provisionInstructions":
+			return ProvisioningParameters.class;
+		case "provisionBatch":
+			return ProvisioningParameters[].class;
+		case CANCEL_METHOD:
+			return CancelParams.class;
+		default:
+			return null;
+		}
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+		private final String role;
+
+		DaemonThreadFactory(String role) {
+			this.role = role;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ppp4j-" + role + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
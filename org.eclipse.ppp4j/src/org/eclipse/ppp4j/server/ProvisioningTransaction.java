@@ -0,0 +1,402 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.ppp4j.messages.Instruction.ContentSource;
+
+/**
+ * Writes the files of a project so that a failed provision leaves nothing
+ * behind.
+ *
+ * Files are written in parallel into a staging directory next to the project
+ * location, which is on the same file system. {@link #commit()} waits for the
+ * writes, forces them to disk and moves the staged files into place: the whole
+ * directory at once when the location does not exist yet, each top level file
+ * otherwise, after checking that none of them would replace an existing one.
+ * Closing a transaction that was not committed deletes what it staged, along
+ * with the parent directories it created. Callers that cache what they found at
+ * the location drop it after the commit, see {@link LocationProbe#invalidate}.
+ *
+ * <pre>
+ * try (ProvisioningTransaction transaction = ProvisioningTransaction.begin(location)) {
+ * 	transaction.write("index.html", content);
+ * 	transaction.commit();
+ * }
+ * </pre>
+ */
+public final class ProvisioningTransaction implements AutoCloseable {
+	private static final ExecutorService WRITERS = createWriters();
+
+	private final Path location;
+	private final Path stagingDirectory;
+	// the highest directory created for the staging directory, null if none
+	private final Path createdParent;
+	private final List<CompletableFuture<Void>> writes = new ArrayList<>();
+	private boolean committed;
+
+	/**
+	 * Writes the content of a staged file.
+	 */
+	@FunctionalInterface
+	public interface Content {
+		/**
+		 * @param target the file to create, its parent directory exists
+		 */
+		void writeTo(Path target) throws IOException;
+	}
+
+	private ProvisioningTransaction(Path location, Path stagingDirectory, Path createdParent) {
+		this.location = location;
+		this.stagingDirectory = stagingDirectory;
+		this.createdParent = createdParent;
+	}
+
+	/**
+	 * Creates the staging directory of a project at the location, which may
+	 * exist already.
+	 */
+	public static ProvisioningTransaction begin(File location) throws IOException {
+		Path target = location.toPath().toAbsolutePath().normalize();
+		Path parent = target.getParent();
+		if (parent == null) {
+			throw new IOException("Cannot provision a project at " + target); //$NON-NLS-1$
+		}
+		Path createdParent = null;
+		for (Path ancestor = parent; ancestor != null && !Files.exists(ancestor); ancestor = ancestor.getParent()) {
+			createdParent = ancestor;
+		}
+		Files.createDirectories(parent);
+		Path stagingDirectory;
+		try {
+			stagingDirectory = createStagingDirectory(parent, target.getFileName().toString());
+		} catch (IOException e) {
+			deleteEmptyParents(parent, createdParent);
+			throw e;
+		}
+		return new ProvisioningTransaction(target, stagingDirectory, createdParent);
+	}
+
+	/**
+	 * Creates a directory with a unique hidden name next to the location. Not a
+	 * temporary directory, whose owner only permissions would stay on the project
+	 * once it is moved into place.
+	 */
+	private static Path createStagingDirectory(Path parent, String name) throws IOException {
+		while (true) {
+			String suffix = Long.toHexString(ThreadLocalRandom.current().nextLong());
+			Path directory = parent.resolve("." + name + ".ppp-" + suffix); //$NON-NLS-1$ //$NON-NLS-2$
+			try {
+				return Files.createDirectory(directory);
+			} catch (FileAlreadyExistsException e) {
+				// taken by another transaction, try another name
+			}
+		}
+	}
+
+	/**
+	 * @return the directory files are staged in, for tools that write the project
+	 *         themselves; it is moved to the location on {@link #commit()}
+	 */
+	public Path getStagingDirectory() {
+		return stagingDirectory;
+	}
+
+	/**
+	 * Writes a file on a writer thread.
+	 *
+	 * @param path the path of the file relative to the project location
+	 */
+	public synchronized void write(String path, Content content) throws IOException {
+		if (committed) {
+			throw new IllegalStateException("Transaction already committed"); //$NON-NLS-1$
+		}
+		Path target = stagingDirectory.resolve(path).normalize();
+		if (!target.startsWith(stagingDirectory) || target.equals(stagingDirectory)) {
+			throw new IOException("Invalid file path " + path); //$NON-NLS-1$
+		}
+		writes.add(CompletableFuture.runAsync(() -> {
+			try {
+				Files.createDirectories(target.getParent());
+				content.writeTo(target);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, WRITERS));
+	}
+
+	public void write(String path, byte[] content) throws IOException {
+		write(path, target -> Files.write(target, content, StandardOpenOption.CREATE_NEW));
+	}
+
+	public void write(String path, ContentSource source) throws IOException {
+		write(path, target -> {
+			try (InputStream in = source.open()) {
+				Files.copy(in, target);
+			}
+		});
+	}
+
+	/**
+	 * Waits for the writes, forces the staged files to disk and moves them to the
+	 * location. Nothing is left at the location if it fails.
+	 */
+	public synchronized void commit() throws IOException {
+		if (committed) {
+			return;
+		}
+		awaitWrites();
+		sync(stagingDirectory);
+		if (!Files.exists(location, LinkOption.NOFOLLOW_LINKS)) {
+			try {
+				Files.move(stagingDirectory, location, StandardCopyOption.ATOMIC_MOVE);
+				committed = true;
+				forceDirectory(location.getParent());
+				return;
+			} catch (AtomicMoveNotSupportedException e) {
+				// moved file by file below
+			}
+		}
+		boolean createdLocation = false;
+		if (!Files.exists(location, LinkOption.NOFOLLOW_LINKS)) {
+			Files.createDirectory(location);
+			createdLocation = true;
+		} else if (!Files.isDirectory(location)) {
+			throw new FileAlreadyExistsException(location.toString());
+		}
+		List<Path> conflicts = new ArrayList<>();
+		findConflicts(stagingDirectory, location, conflicts);
+		if (!conflicts.isEmpty()) {
+			throw new FileAlreadyExistsException(
+					conflicts.stream().map(Path::toString).collect(Collectors.joining(", ")), null, //$NON-NLS-1$
+					"already exists"); //$NON-NLS-1$
+		}
+		Deque<Path> moved = new ArrayDeque<>();
+		try {
+			moveInto(stagingDirectory, location, moved);
+		} catch (IOException e) {
+			rollBack(moved);
+			if (createdLocation) {
+				Files.deleteIfExists(location);
+			}
+			throw e;
+		}
+		committed = true;
+		forceDirectory(location);
+		deleteTree(stagingDirectory);
+	}
+
+	/**
+	 * Deletes what was staged unless the transaction was committed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (committed) {
+			return;
+		}
+		try {
+			awaitWrites();
+		} catch (IOException e) {
+			// the writes are discarded anyway
+		}
+		deleteTree(stagingDirectory);
+		deleteEmptyParents(location.getParent(), createdParent);
+	}
+
+	private void awaitWrites() throws IOException {
+		try {
+			CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[writes.size()])).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Forces the staged files to disk in parallel, then the directories
+	 * containing them so that their entries are durable too.
+	 */
+	private static void sync(Path directory) throws IOException {
+		List<Path> files;
+		List<Path> directories;
+		try (Stream<Path> tree = Files.walk(directory)) {
+			List<Path> paths = tree.collect(Collectors.toList());
+			files = paths.stream().filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS))
+					.collect(Collectors.toList());
+			directories = paths.stream().filter(path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+					.collect(Collectors.toList());
+		}
+		CompletableFuture<?>[] forces = new CompletableFuture<?>[files.size()];
+		for (int i = 0; i < forces.length; i++) {
+			Path file = files.get(i);
+			forces[i] = CompletableFuture.runAsync(() -> {
+				try {
+					forceFile(file);
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				}
+			}, WRITERS);
+		}
+		try {
+			CompletableFuture.allOf(forces).join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		}
+		for (Path staged : directories) {
+			forceDirectory(staged);
+		}
+	}
+
+	/**
+	 * Forces the file through a read only channel, which can be opened whatever
+	 * its permissions, or a writable one where flushing needs write access.
+	 */
+	private static void forceFile(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			channel.force(true);
+			return;
+		} catch (IOException e) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				channel.force(true);
+			} catch (IOException writeError) {
+				writeError.addSuppressed(e);
+				throw writeError;
+			}
+		}
+	}
+
+	private static void forceDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// not every platform can open a directory, its entries are flushed with the file system
+		}
+	}
+
+	private static void findConflicts(Path source, Path target, List<Path> conflicts) throws IOException {
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+			for (Path entry : entries) {
+				Path targetEntry = target.resolve(entry.getFileName().toString());
+				if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)
+						&& Files.isDirectory(targetEntry, LinkOption.NOFOLLOW_LINKS)) {
+					findConflicts(entry, targetEntry, conflicts);
+				} else if (Files.exists(targetEntry, LinkOption.NOFOLLOW_LINKS)) {
+					conflicts.add(targetEntry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the entries of the source into the target, going into the directories
+	 * that exist on both sides.
+	 *
+	 * @param moved receives the moved targets, last moved first
+	 */
+	private static void moveInto(Path source, Path target, Deque<Path> moved) throws IOException {
+		List<Path> entries;
+		try (Stream<Path> list = Files.list(source)) {
+			entries = list.collect(Collectors.toList());
+		}
+		for (Path entry : entries) {
+			Path targetEntry = target.resolve(entry.getFileName().toString());
+			if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)
+					&& Files.isDirectory(targetEntry, LinkOption.NOFOLLOW_LINKS)) {
+				moveInto(entry, targetEntry, moved);
+			} else {
+				Files.move(entry, targetEntry, StandardCopyOption.ATOMIC_MOVE);
+				moved.push(targetEntry);
+			}
+		}
+	}
+
+	private void rollBack(Deque<Path> moved) {
+		for (Path targetEntry : moved) {
+			Path entry = stagingDirectory.resolve(location.relativize(targetEntry));
+			try {
+				Files.move(targetEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// deleted instead, it was not there before the transaction
+				try {
+					deleteTree(targetEntry);
+				} catch (IOException deleteError) {
+					e.addSuppressed(deleteError);
+				}
+			}
+		}
+	}
+
+	private static void deleteTree(Path root) throws IOException {
+		if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+			return;
+		}
+		try (Stream<Path> tree = Files.walk(root)) {
+			// children before their parent
+			for (Path path : tree.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	private static void deleteEmptyParents(Path from, Path upTo) {
+		if (upTo == null) {
+			return;
+		}
+		for (Path directory = from; directory != null && directory.startsWith(upTo); directory = directory
+				.getParent()) {
+			try {
+				Files.deleteIfExists(directory);
+			} catch (IOException e) {
+				// not empty, or not ours to delete
+				return;
+			}
+		}
+	}
+
+	private static ExecutorService createWriters() {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+			Thread thread = new Thread(runnable, "ppp4j-transaction-writer-" + count.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
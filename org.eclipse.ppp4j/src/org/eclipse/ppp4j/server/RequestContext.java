@@ -0,0 +1,167 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.eclipse.ppp4j.messages.Progress;
+
+/**
+ * The request an endpoint is handling, giving it a way to report progress to
+ * the client and to find out that the client cancelled the request.
+ *
+ * Endpoints get it with {@link #current()} from the thread they are called on.
+ */
+public final class RequestContext {
+	private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+	private static final RequestContext DETACHED = new RequestContext(null, null, false);
+
+	private final String requestId;
+	private final Notifier notifier;
+	private final boolean remote;
+	private final List<Runnable> cancelListeners = new ArrayList<>();
+	private boolean cancelled;
+
+	/**
+	 * @param notifier sends notifications about the request, <code>null</code> to
+	 *                 drop them
+	 * @param remote   whether the client reads the notifications from a
+	 *                 transport, rather than calling the server directly
+	 */
+	RequestContext(String requestId, Notifier notifier, boolean remote) {
+		this.requestId = requestId;
+		this.notifier = notifier;
+		this.remote = remote;
+	}
+
+	/**
+	 * @return the context of the request handled by the calling thread, or a
+	 *         context that is never cancelled and drops progress when the thread
+	 *         is not handling a request
+	 */
+	public static RequestContext current() {
+		RequestContext context = CURRENT.get();
+		return context == null ? DETACHED : context;
+	}
+
+	static RequestContext enter(RequestContext context) {
+		RequestContext previous = CURRENT.get();
+		CURRENT.set(context);
+		return previous;
+	}
+
+	static void exit(RequestContext previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * @return the id of the request, <code>null</code> for a notification or
+	 *         when no request is handled
+	 */
+	public String getRequestId() {
+		return requestId;
+	}
+
+	/**
+	 * Sends a <code>$/progress</code> notification for the request.
+	 *
+	 * @param total the amount of work once the request is done, 0 or less when
+	 *              unknown
+	 */
+	public void reportProgress(String message, int worked, int total) {
+		reportProgress(new Progress(requestId, message, worked, total));
+	}
+
+	/**
+	 * Sends the progress as a <code>$/progress</code> notification for the
+	 * request, its id is set to the id of the request.
+	 */
+	public void reportProgress(Progress progress) {
+		progress.id = requestId;
+		sendNotification(ProvisioningServer.PROGRESS_METHOD, progress);
+	}
+
+	/**
+	 * @return completes once the notification is written, at once if it was
+	 *         dropped
+	 */
+	Future<?> sendNotification(String method, Object params) {
+		if (notifier == null || requestId == null || isCancelled()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return notifier.send(method, params);
+	}
+
+	/**
+	 * @return whether notifications about the request reach the client, they
+	 *         are dropped otherwise
+	 */
+	boolean canNotify() {
+		return notifier != null && requestId != null;
+	}
+
+	boolean isRemote() {
+		return remote;
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Runs the listener when the request is cancelled, right away if it already
+	 * is. Endpoints use it to stop the work they started, such as a process.
+	 */
+	public void onCancel(Runnable listener) {
+		if (this == DETACHED) {
+			return;
+		}
+		synchronized (this) {
+			if (!cancelled) {
+				cancelListeners.add(listener);
+				return;
+			}
+		}
+		listener.run();
+	}
+
+	interface Notifier {
+		Future<?> send(String method, Object params);
+	}
+
+	void cancel() {
+		List<Runnable> listeners;
+		synchronized (this) {
+			if (cancelled) {
+				return;
+			}
+			cancelled = true;
+			listeners = new ArrayList<>(cancelListeners);
+			cancelListeners.clear();
+		}
+		for (Runnable listener : listeners) {
+			try {
+				listener.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*********************************************************************
+ * Copyright (c) 2018 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Lucas Bullen (Red Hat Inc.) - Initial implementation
+ *******************************************************************************/
+package org.eclipse.ppp4j.server;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Counts and times the requests handled by a {@link ProvisioningServer}. All
+ * durations are recorded in nanoseconds and reported in milliseconds.
+ */
+public class ServerMetrics {
+	private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+	private final LatencyHistogram decodeTime = new LatencyHistogram();
+	private final LatencyHistogram encodeTime = new LatencyHistogram();
+	private final LatencyHistogram queueTime = new LatencyHistogram();
+	private final AtomicLong malformedMessages = new AtomicLong();
+	private final long startMillis = System.currentTimeMillis();
+	private volatile IntSupplier queueDepth = () -> 0;
+
+	void setQueueDepth(IntSupplier queueDepth) {
+		this.queueDepth = queueDepth;
+	}
+
+	void recordDecode(long nanos) {
+		decodeTime.record(nanos);
+	}
+
+	void recordEncode(long nanos) {
+		encodeTime.record(nanos);
+	}
+
+	void recordQueued(long nanos) {
+		queueTime.record(nanos);
+	}
+
+	void recordMalformedMessage() {
+		malformedMessages.incrementAndGet();
+	}
+
+	void recordRequest(String method, long nanos, boolean failed) {
+		MethodMetrics metrics = methods.computeIfAbsent(method == null ? "" : method, key -> new MethodMetrics());
+		metrics.latency.record(nanos);
+		if (failed) {
+			metrics.errors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the metrics as maps of numbers, the result of the
+	 *         <code>$metrics</code> method
+	 */
+	public Map<String, Object> snapshot() {
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("uptime", System.currentTimeMillis() - startMillis); //$NON-NLS-1$
+		snapshot.put("queueDepth", queueDepth.getAsInt()); //$NON-NLS-1$
+		snapshot.put("malformedMessages", malformedMessages.get()); //$NON-NLS-1$
+		snapshot.put("decodeTime", toMap(decodeTime)); //$NON-NLS-1$
+		snapshot.put("encodeTime", toMap(encodeTime)); //$NON-NLS-1$
+		snapshot.put("queueTime", toMap(queueTime)); //$NON-NLS-1$
+		Map<String, Object> methodSnapshots = new LinkedHashMap<>();
+		methods.forEach((method, metrics) -> {
+			Map<String, Object> methodSnapshot = toMap(metrics.latency);
+			methodSnapshot.put("errors", metrics.errors.get()); //$NON-NLS-1$
+			methodSnapshots.put(method, methodSnapshot);
+		});
+		snapshot.put("methods", methodSnapshots); //$NON-NLS-1$
+		return snapshot;
+	}
+
+	/**
+	 * Prints one line per method followed by the queue, decode and encode times.
+	 */
+	public void print(PrintStream out) {
+		StringBuilder text = new StringBuilder();
+		text.append("[ppp4j metrics] queueDepth=").append(queueDepth.getAsInt()) //$NON-NLS-1$
+				.append(" malformedMessages=").append(malformedMessages.get()).append('\n'); //$NON-NLS-1$
+		methods.forEach((method, metrics) -> text.append("[ppp4j metrics] ").append(method).append(": ") //$NON-NLS-1$
+				.append(metrics.latency).append(" errors=").append(metrics.errors.get()).append('\n')); //$NON-NLS-1$
+		text.append("[ppp4j metrics] queue: ").append(queueTime).append('\n'); //$NON-NLS-1$
+		text.append("[ppp4j metrics] decode: ").append(decodeTime).append('\n'); //$NON-NLS-1$
+		text.append("[ppp4j metrics] encode: ").append(encodeTime).append('\n'); //$NON-NLS-1$
+		out.print(text);
+		out.flush();
+	}
+
+	private static Map<String, Object> toMap(LatencyHistogram histogram) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("count", histogram.getCount()); //$NON-NLS-1$
+		map.put("mean", toMillis(histogram.getMean())); //$NON-NLS-1$
+		map.put("p50", toMillis(histogram.getValueAtPercentile(50))); //$NON-NLS-1$
+		map.put("p90", toMillis(histogram.getValueAtPercentile(90))); //$NON-NLS-1$
+		map.put("p99", toMillis(histogram.getValueAtPercentile(99))); //$NON-NLS-1$
+		map.put("max", toMillis(histogram.getMax())); //$NON-NLS-1$
+		return map;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000d;
+	}
+
+	private static class MethodMetrics {
+		final LatencyHistogram latency = new LatencyHistogram();
+		final AtomicLong errors = new AtomicLong();
+	}
+}
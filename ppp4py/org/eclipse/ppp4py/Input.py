@@ -33,8 +33,13 @@ def sendMessage(method, parameters):
     process.stdin.write(json.dumps({'jsonrcp':'2.0', 'id':str(currentMessageId), 'method':'projectProvisioning/' + method, 'params':parameters}) + '\n')
     currentMessageId+=1
     returnMessage = json.loads(process.stdout.readline())
+    # notifications have no id, skip them until the response
+    while returnMessage and returnMessage.get('id') is None:
+        returnMessage = json.loads(process.stdout.readline())
     if not returnMessage:
         return returnMessage
+    if 'error' in returnMessage:
+        return {'errorMessage': returnMessage['error']['message']}
     return returnMessage['result']
 
 